@@ -35,27 +35,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwt = null;
 
-        // Extract token from Authorization header
+        // Extract and verify token from Authorization header (cached after the first request)
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.warn("Invalid JWT token: {}", e.getMessage());
+            username = jwtUtil.authenticate(authorizationHeader.substring(7));
+            if (username == null) {
+                logger.warn("Invalid or expired JWT token");
             }
         }
 
-        // Validate token and set authentication
+        // Set authentication
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, username)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
 
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                logger.debug("JWT validated for user: {}", username);
-            }
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            logger.debug("JWT validated for user: {}", username);
         }
 
         filterChain.doFilter(request, response);
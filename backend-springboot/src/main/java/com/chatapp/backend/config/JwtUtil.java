@@ -1,12 +1,28 @@
 package com.chatapp.backend.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.WeakKeyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -14,16 +30,130 @@ import java.util.function.Function;
  * Utility class for JWT token operations.
  * Handles token generation, validation, and username extraction.
  * Tokens are valid for 24 hours.
+ * Signing keys come from a configured key set (jwt.keys = id:base64-secret,...):
+ * - New tokens are signed with the active key and carry its id (kid header)
+ * - Tokens are verified with whichever key in the set their kid names
+ * Every instance sharing the key set accepts every other instance's tokens.
+ * Rotation: add the new key everywhere, switch jwt.active-key-id, and drop
+ * the old key once its last tokens have expired (24 hours).
+ * Without jwt.keys a random key is generated (single instance, lost on restart);
+ * with jwt.keys.required (prod) a missing key set or active key id fails startup instead.
+ * Verified tokens are cached (keyed by their SHA-256) until they expire,
+ * so repeat requests with the same token skip parsing and signature checks.
+ * The cache holds at most jwt.cache.max-size tokens; the least recently used one makes room.
  */
 @Component
 public class JwtUtil {
 
-    // Secret key for signing tokens (in production, store in environment variable)
-    private final SecretKey SECRET_KEY = Jwts.SIG.HS256.key().build();
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
     // Token validity: 24 hours
     private static final long JWT_TOKEN_VALIDITY = 24 * 60 * 60 * 1000;
 
+    // Key id used when no key set is configured
+    private static final String GENERATED_KEY_ID = "generated";
+
+    // Key id → HMAC key; any of them verifies, only the active one signs
+    private final Map<String, SecretKey> keys;
+    private final String activeKeyId;
+
+    // Parsers are immutable and thread-safe: build once
+    private final JwtParser parser;
+
+    // Most verified tokens kept; overridden from jwt.cache.max-size when run in Spring
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+
+    // SHA-256 of token → who it belongs to and until when, access-ordered; guarded by itself
+    private final LinkedHashMap<String, VerifiedToken> verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            return size() > cacheMaxSize;
+        }
+    };
+
+    private record VerifiedToken(String username, long expiresAt) {
+    }
+
+    // Random key, for tests and single-instance development
+    public JwtUtil() {
+        this("", "");
+    }
+
+    public JwtUtil(String keySet, String activeKeyId) {
+        this(keySet, activeKeyId, false);
+    }
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.keys:}") String keySet,
+                   @Value("${jwt.active-key-id:}") String activeKeyId,
+                   @Value("${jwt.keys.required:false}") boolean keysRequired) {
+        this.keys = parseKeySet(keySet);
+        String active = activeKeyId;
+        if (keysRequired && (keys.isEmpty() || active == null || active.isBlank())) {
+            // A per-instance key would make tokens fail on other instances and after restarts
+            throw new IllegalStateException("jwt.keys and jwt.active-key-id must be set (JWT_KEYS, JWT_ACTIVE_KEY_ID)");
+        }
+        if (keys.isEmpty()) {
+            logger.warn("No jwt.keys configured - using a random signing key; tokens are lost on restart");
+            keys.put(GENERATED_KEY_ID, Jwts.SIG.HS256.key().build());
+            active = GENERATED_KEY_ID;
+        } else if (active == null || active.isBlank()) {
+            // Last listed key signs by default
+            active = keys.keySet().stream().reduce((first, second) -> second).orElseThrow();
+        }
+        if (!keys.containsKey(active)) {
+            throw new IllegalStateException("jwt.active-key-id '" + active + "' is not in jwt.keys");
+        }
+        this.activeKeyId = active;
+        this.parser = Jwts.parser().keyLocator(new KeySetLocator()).build();
+        logger.info("JWT keys loaded: {} (signing with '{}')", keys.keySet(), active);
+    }
+
+    // Picks the verification key named by the token's kid header
+    private class KeySetLocator extends LocatorAdapter<Key> {
+        @Override
+        protected Key locate(ProtectedHeader header) {
+            String keyId = header.getKeyId();
+            return keys.get(keyId != null ? keyId : activeKeyId);
+        }
+    }
+
+    /**
+     * Username of a valid, unexpired token, or null.
+     * The first call verifies the signature; later calls are a cache lookup.
+     */
+    public String authenticate(String token) {
+        String key = hash(token);
+        VerifiedToken cached;
+        synchronized (verifiedTokens) {
+            cached = verifiedTokens.get(key);
+        }
+        if (cached == null) {
+            Claims claims;
+            try {
+                claims = extractAllClaims(token);
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                return null;
+            }
+            cached = new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime());
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(key, cached);
+            }
+        }
+
+        if (cached.expiresAt() <= System.currentTimeMillis()) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.remove(key);
+            }
+            return null;
+        }
+        return cached.username();
+    }
+
     // Extract username from token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -42,16 +172,7 @@ public class JwtUtil {
 
     // Extract all claims from token
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(SECRET_KEY)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     // Generate token for user
@@ -67,13 +188,43 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
-                .signWith(SECRET_KEY, Jwts.SIG.HS256)
+                .header().keyId(activeKeyId).and()
+                .signWith(keys.get(activeKeyId), Jwts.SIG.HS256)
                 .compact();
     }
 
     // Validate token
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return username.equals(authenticate(token));
+    }
+
+    // "k1:base64,k2:base64" → ordered map; secrets must be at least 256 bits
+    private static Map<String, SecretKey> parseKeySet(String keySet) {
+        Map<String, SecretKey> parsed = new LinkedHashMap<>();
+        if (keySet == null || keySet.isBlank()) {
+            return parsed;
+        }
+        for (String entry : keySet.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalStateException("jwt.keys entries must be id:base64-secret");
+            }
+            try {
+                parsed.put(parts[0].trim(), Keys.hmacShaKeyFor(Base64.getDecoder().decode(parts[1].trim())));
+            } catch (IllegalArgumentException | WeakKeyException e) {
+                throw new IllegalStateException("Invalid secret for JWT key '" + parts[0].trim() + "'", e);
+            }
+        }
+        return parsed;
+    }
+
+    // Cache key: tokens themselves are never kept in memory
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.chatapp.backend.config;
+
+import com.chatapp.backend.dto.response.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client rate limiting with token buckets, one bucket per (endpoint group, client).
+ * - Client: the authenticated username, or the remote IP before login
+ * - Groups: auth (login/register), polling (endpoints clients call on a timer), api (the rest of /api)
+ * - Over the limit: 429 with Retry-After
+ * Buckets live in a ConcurrentHashMap (internally striped) and are dropped once idle.
+ * Runs inside the security chain, after JwtAuthenticationFilter, so the username is known.
+ * Metrics: chat.rate_limit.rejected (tag group), chat.rate_limit.buckets
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // Endpoints the client polls every few seconds
+    private static final Set<String> POLLING_PATHS = Set.of(
+            "/api/messages/check-notif",
+            "/api/messages/unread-summary",
+            "/api/messages/get",
+            "/api/friends/get",
+            "/api/friends/inbox",
+            "/api/friends/requests"
+    );
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${chat.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.rate-limit.auth.capacity:10}")
+    private double authCapacity;
+
+    @Value("${chat.rate-limit.auth.refill-per-second:0.2}")
+    private double authRefillPerSecond;
+
+    @Value("${chat.rate-limit.polling.capacity:30}")
+    private double pollingCapacity;
+
+    @Value("${chat.rate-limit.polling.refill-per-second:5}")
+    private double pollingRefillPerSecond;
+
+    @Value("${chat.rate-limit.api.capacity:60}")
+    private double apiCapacity;
+
+    @Value("${chat.rate-limit.api.refill-per-second:20}")
+    private double apiRefillPerSecond;
+
+    @Value("${chat.rate-limit.idle-ms:600000}")
+    private long idleMs;
+
+    // "group|client" → bucket
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    private enum Group {
+        AUTH, POLLING, API
+    }
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("chat.rate_limit.buckets", buckets, Map::size);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Group group = enabled ? groupOf(request.getRequestURI()) : null;
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String client = clientOf(request);
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = buckets.computeIfAbsent(group + "|" + client, key -> newBucket(group, now));
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        meterRegistry.counter("chat.rate_limit.rejected", "group", group.name().toLowerCase()).increment();
+        logger.warn("Rate limit exceeded: {} on {} ({})", client, request.getRequestURI(), group);
+        reject(response, Math.ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    // Drop buckets nobody used for idle-ms; a returning client starts with a full bucket anyway
+    @Scheduled(fixedDelayString = "${chat.rate-limit.idle-ms:600000}")
+    public void evictIdleBuckets() {
+        long now = nanoClock.getAsLong();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+
+    private static Group groupOf(String path) {
+        if (path.startsWith("/api/auth/")) {
+            return Group.AUTH;
+        }
+        if (POLLING_PATHS.contains(path)) {
+            return Group.POLLING;
+        }
+        if (path.startsWith("/api/")) {
+            return Group.API;
+        }
+        return null;
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof UsernamePasswordAuthenticationToken
+                && authentication.getPrincipal() instanceof String username) {
+            return "user:" + username;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private TokenBucket newBucket(Group group, long now) {
+        return switch (group) {
+            case AUTH -> new TokenBucket(authCapacity, authRefillPerSecond, now);
+            case POLLING -> new TokenBucket(pollingCapacity, pollingRefillPerSecond, now);
+            case API -> new TokenBucket(apiCapacity, apiRefillPerSecond, now);
+        };
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                "Too many requests, please slow down",
+                "RATE_LIMITED",
+                HttpStatus.TOO_MANY_REQUESTS.value()
+        );
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -1,29 +1,99 @@
 package com.chatapp.backend.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 /**
  * Spring Security configuration for JWT-based authentication.
  * Disables session management (stateless) and protects all endpoints except login/register.
+ * The BCrypt cost is calibrated at startup so one hash takes about bcrypt.target-ms
+ * on this hardware (never below Spring's default of 10).
+ * Hashes are stored with a scheme prefix ({bcrypt}$2a$11$...), so the scheme and cost
+ * can change later; outdated hashes are upgraded on the next successful login.
+ * Hashes from before the prefix are plain BCrypt and count as outdated only by their cost.
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
+    // Calibration range: 10 is Spring's default, every step doubles the work
+    private static final int MIN_BCRYPT_COST = 10;
+    private static final int MAX_BCRYPT_COST = 16;
+
+    // Scheme id of new hashes ({bcrypt}...)
+    private static final String PASSWORD_SCHEME = "bcrypt";
+
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    // Fixed cost; 0 = calibrate at startup
+    @Value("${chat.auth.bcrypt.cost:0}")
+    private int bcryptCost;
+
+    @Value("${chat.auth.bcrypt.target-ms:250}")
+    private long bcryptTargetMs;
+
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder() {
+        int cost = bcryptCost > 0 ? bcryptCost : calibrateBcryptCost(bcryptTargetMs);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(PASSWORD_SCHEME,
+                Map.of(PASSWORD_SCHEME, bcrypt)) {
+            // A missing prefix alone is no reason to spend another hash on the login
+            @Override
+            protected boolean upgradeEncodingNonNull(String prefixEncodedPassword) {
+                if (prefixEncodedPassword.startsWith("$2")) {
+                    return bcrypt.upgradeEncoding(prefixEncodedPassword);
+                }
+                return super.upgradeEncodingNonNull(prefixEncodedPassword);
+            }
+        };
+        // Hashes stored before the prefix existed are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    // Highest cost whose hash time stays within targetMs, measured at the minimum cost
+    private static int calibrateBcryptCost(long targetMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_BCRYPT_COST);
+        probe.encode("calibration"); // warm-up
+
+        long fastestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+
+        double hashMs = fastestNanos / 1_000_000.0;
+        int cost = MIN_BCRYPT_COST;
+        while (cost < MAX_BCRYPT_COST && hashMs * 2 <= targetMs) {
+            cost++;
+            hashMs *= 2;
+        }
+        logger.info("BCrypt cost {} (about {} ms per hash, target {} ms)", cost, Math.round(hashMs), targetMs);
+        return cost;
     }
 
     @Bean
@@ -39,8 +109,18 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
                 // Add JWT filter
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Rate limit after JWT, so authenticated clients are limited per username
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
+
+    // Rate limiting runs only inside the security chain, not again as a plain servlet filter
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
 }
\ No newline at end of file
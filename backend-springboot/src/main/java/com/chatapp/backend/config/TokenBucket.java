@@ -0,0 +1,44 @@
+package com.chatapp.backend.config;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket: holds up to capacity tokens, refilled continuously.
+ * The state is replaced with compare-and-set, so concurrent requests never block.
+ * Times are System.nanoTime() values passed in by the caller.
+ */
+final class TokenBucket {
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+
+    TokenBucket(double capacity, double refillPerSecond, long now) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        this.state = new AtomicReference<>(new State(capacity, now));
+    }
+
+    // Take one token: 0 if granted, otherwise nanoseconds until one is available
+    long tryConsume(long now) {
+        while (true) {
+            State current = state.get();
+            double elapsed = Math.max(0, now - current.updatedAt());
+            double tokens = Math.min(capacity, current.tokens() + elapsed * refillPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / refillPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+
+    // Unused for longer than idleNanos (it has refilled completely by then)
+    boolean isIdle(long now, long idleNanos) {
+        return now - state.get().updatedAt() > idleNanos;
+    }
+}
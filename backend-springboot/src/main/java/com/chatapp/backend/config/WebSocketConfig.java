@@ -0,0 +1,26 @@
+package com.chatapp.backend.config;
+
+import com.chatapp.backend.websocket.MessagePushHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the message push endpoint (/ws/messages).
+ * The handshake is a normal HTTP request, so it is protected by the JWT filter chain.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private MessagePushHandler messagePushHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(messagePushHandler, "/ws/messages")
+                .setAllowedOrigins("*");
+    }
+}
@@ -2,7 +2,9 @@ package com.chatapp.backend.controller;
 
 import com.chatapp.backend.config.SecurityUtils;
 import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.InboxEntryResponse;
 import com.chatapp.backend.service.FriendService;
+import com.chatapp.backend.service.InboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,9 @@ public class FriendController {
     @Autowired
     private FriendService friendService;
 
+    @Autowired
+    private InboxService inboxService;
+
     // Get friends list - NO username parameter, use JWT token
     @PostMapping("/get")
     public ResponseEntity<ApiResponse<List<String>>> getFriends() {
@@ -25,6 +30,14 @@ public class FriendController {
         return ResponseEntity.ok(response);
     }
 
+    // Get inbox (conversations with last message and unread count) - use JWT token
+    @PostMapping("/inbox")
+    public ResponseEntity<ApiResponse<List<InboxEntryResponse>>> getInbox() {
+        String username = SecurityUtils.getCurrentUsername();
+        ApiResponse<List<InboxEntryResponse>> response = inboxService.getInbox(username);
+        return ResponseEntity.ok(response);
+    }
+
     // Get friend requests - NO username parameter, use JWT token
     @PostMapping("/requests")
     public ResponseEntity<ApiResponse<List<String>>> getFriendRequests() {
@@ -2,6 +2,7 @@ package com.chatapp.backend.controller;
 
 import com.chatapp.backend.config.SecurityUtils;
 import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.MessagePageResponse;
 import com.chatapp.backend.dto.response.MessageResponse;
 import com.chatapp.backend.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -27,11 +29,26 @@ public class MessageController {
         return ResponseEntity.ok(response);
     }
 
-    // Get messages - user1 from JWT
+    // Get messages (optionally only those after sinceId) - user1 from JWT
     @PostMapping("/get")
-    public ResponseEntity<ApiResponse<List<MessageResponse>>> getMessages(@RequestParam String receiver) {
+    public ResponseEntity<ApiResponse<List<MessageResponse>>> getMessages(
+            @RequestParam String receiver,
+            @RequestParam(required = false) Integer sinceId) {
         String user1 = SecurityUtils.getCurrentUsername();
-        ApiResponse<List<MessageResponse>> response = messageService.getMessages(user1, receiver);
+        ApiResponse<List<MessageResponse>> response = messageService.getMessages(user1, receiver, sinceId);
+        return ResponseEntity.ok(response);
+    }
+
+    // Get one page of history (keyset) - user1 from JWT
+    @PostMapping("/page")
+    public ResponseEntity<ApiResponse<MessagePageResponse>> getMessagePage(
+            @RequestParam String receiver,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer beforeId,
+            @RequestParam(required = false) Integer limit) {
+        String user1 = SecurityUtils.getCurrentUsername();
+        ApiResponse<MessagePageResponse> response =
+                messageService.getMessagePage(user1, receiver, cursor, beforeId, limit);
         return ResponseEntity.ok(response);
     }
 
@@ -42,4 +59,12 @@ public class MessageController {
         ApiResponse<Integer> response = messageService.checkNotification(receiver, chatter);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    // Unread counts for all conversations - receiver from JWT
+    @PostMapping("/unread-summary")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> getUnreadSummary() {
+        String receiver = SecurityUtils.getCurrentUsername();
+        ApiResponse<Map<String, Integer>> response = messageService.getUnreadSummary(receiver);
+        return ResponseEntity.ok(response);
+    }
+}
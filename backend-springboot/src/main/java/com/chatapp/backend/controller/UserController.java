@@ -1,14 +1,27 @@
 package com.chatapp.backend.controller;
 
 import com.chatapp.backend.config.SecurityUtils;
+import com.chatapp.backend.dto.request.PhotoBatchRequest;
 import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.PhotoBatchEntry;
+import com.chatapp.backend.dto.response.PhotoResponse;
 import com.chatapp.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 @RestController
@@ -16,6 +29,10 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class UserController {
 
+    // Clients may reuse a photo for 5 minutes, then revalidate with its ETag
+    private static final CacheControl PHOTO_CACHE_CONTROL =
+            CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate();
+
     @Autowired
     private UserService userService;
 
@@ -27,12 +44,40 @@ public class UserController {
     }
 
     // Get profile photo - can get anyone's photo (public)
+    // Conditional: a matching If-None-Match / If-Modified-Since gets 304 without loading the image
+    // size (optional, px) selects a square thumbnail instead of the original
     @GetMapping("/photo/{username}")
-    public ResponseEntity<byte[]> getProfilePhoto(@PathVariable String username) {
-        ApiResponse<byte[]> response = userService.getProfilePhoto(username);
-        return ResponseEntity.ok()
+    public ResponseEntity<byte[]> getProfilePhoto(@PathVariable String username,
+                                                  @RequestParam(required = false) Integer size,
+                                                  WebRequest request) {
+        PhotoResponse version = userService.getProfilePhotoVersion(username, size).data();
+        if (request.checkNotModified(version.etag(), toEpochMillis(version.lastModified()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(PHOTO_CACHE_CONTROL)
+                    .build();
+        }
+
+        PhotoResponse photo = userService.getProfilePhoto(username, size).data();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
                 .contentType(MediaType.IMAGE_PNG)
-                .body(response.data());
+                .eTag(photo.etag())
+                .cacheControl(PHOTO_CACHE_CONTROL);
+        if (photo.lastModified() != null) {
+            builder.lastModified(toEpochMillis(photo.lastModified()));
+        }
+        return builder.body(photo.data());
+    }
+
+    // Get many profile photos in one round trip (e.g. a whole friends list)
+    // Body: {"size": 48, "photos": {"alice": "<known ETag or null>", ...}}
+    // Only changed photos are returned, length-prefixed (see encodePhotoBatch)
+    @PostMapping(value = "/photos", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getProfilePhotos(@RequestBody PhotoBatchRequest request) {
+        List<PhotoBatchEntry> photos = userService.getProfilePhotos(request.photos(), request.size()).data();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.noStore())
+                .body(encodePhotoBatch(photos));
     }
 
     // Update profile photo - username from JWT (can only update YOUR OWN photo)
@@ -47,4 +92,30 @@ public class UserController {
             return ResponseEntity.ok(ApiResponse.error("Photo upload failed"));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Batch wire format (big-endian, java.io.DataOutputStream):
+     * - int count
+     * - per photo: UTF username, UTF etag, int length, image bytes (length 0 = no photo)
+     */
+    private static byte[] encodePhotoBatch(List<PhotoBatchEntry> photos) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(photos.size());
+            for (PhotoBatchEntry photo : photos) {
+                out.writeUTF(photo.username());
+                out.writeUTF(photo.etag());
+                out.writeInt(photo.data().length);
+                out.write(photo.data());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // -1 means "unknown" to Spring's Last-Modified handling
+    private static long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,6 @@
+package com.chatapp.backend.dto.request;
+
+import java.util.Map;
+
+// photos: username → ETag the client already has (null if none)
+public record PhotoBatchRequest(Integer size, Map<String, String> photos) {}
@@ -0,0 +1,5 @@
+package com.chatapp.backend.dto.response;
+
+import java.time.LocalDateTime;
+
+public record InboxEntryResponse(String username, int unreadCount, String lastMessage, LocalDateTime lastMessageAt) {}
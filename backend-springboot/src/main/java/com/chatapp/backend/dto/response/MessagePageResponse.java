@@ -0,0 +1,9 @@
+package com.chatapp.backend.dto.response;
+
+import java.util.List;
+
+/**
+ * One page of a conversation, oldest message first.
+ * nextCursor fetches the page before this one (null when there is no older history).
+ */
+public record MessagePageResponse(List<MessageResponse> messages, String nextCursor) {}
@@ -1,3 +1,3 @@
 package com.chatapp.backend.dto.response;
 
-public record MessageResponse(String sender, String message) {}
\ No newline at end of file
+public record MessageResponse(Integer id, String sender, String message) {}
@@ -0,0 +1,4 @@
+package com.chatapp.backend.dto.response;
+
+// One changed photo in a batch response; data is empty for users without a photo
+public record PhotoBatchEntry(String username, String etag, byte[] data) {}
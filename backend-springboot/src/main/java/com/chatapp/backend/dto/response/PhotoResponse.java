@@ -0,0 +1,6 @@
+package com.chatapp.backend.dto.response;
+
+import java.time.LocalDateTime;
+
+// data is null when only the validators (etag, lastModified) were requested
+public record PhotoResponse(String etag, LocalDateTime lastModified, byte[] data) {}
@@ -3,6 +3,7 @@ package com.chatapp.backend.exception;
 import com.chatapp.backend.dto.response.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -16,6 +17,7 @@ import org.springframework.web.context.request.WebRequest;
  * - 401: Authentication failures
  * - 404: Resource not found
  * - 409: Duplicate resources
+ * - 503: Overloaded (with Retry-After)
  * - 500: Internal server errors
  */
 @RestControllerAdvice
@@ -91,6 +93,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // Handle overload (503) - tells the client when to retry
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(
+            ServiceUnavailableException ex, WebRequest request) {
+
+        logger.warn("Service unavailable: {} - Path: {}",
+                ex.getMessage(), request.getDescription(false));
+
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "SERVICE_UNAVAILABLE",
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     // Handle generic exceptions (500)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException(
@@ -115,6 +136,7 @@ public class GlobalExceptionHandler {
             case ResourceNotFoundException e -> "RESOURCE_NOT_FOUND";
             case ValidationException e -> "VALIDATION_ERROR";
             case DuplicateResourceException e -> "DUPLICATE_RESOURCE";
+            case ServiceUnavailableException e -> "SERVICE_UNAVAILABLE";
             default -> "INTERNAL_SERVER_ERROR";
         };
     }
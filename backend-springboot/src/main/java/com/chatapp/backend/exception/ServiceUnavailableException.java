@@ -0,0 +1,16 @@
+package com.chatapp.backend.exception;
+
+// Server is temporarily overloaded; clients should retry after retryAfterSeconds
+public class ServiceUnavailableException extends ChatAppException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
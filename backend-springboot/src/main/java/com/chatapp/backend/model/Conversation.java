@@ -0,0 +1,56 @@
+package com.chatapp.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One chat between two users, stored once per pair in canonical order (user1Id <= user2Id).
+ * Messages reference it by id, so a conversation's history is one contiguous
+ * range of idx_messages_conversation_id.
+ */
+@Entity
+@Table(name = "conversations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversation_pair", columnNames = {"user1_id", "user2_id"}))
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "user1_id", nullable = false)
+    private Long user1Id;
+
+    @Column(name = "user2_id", nullable = false)
+    private Long user2Id;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public Conversation() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Conversation(Long userA, Long userB) {
+        boolean ordered = userA <= userB;
+        this.user1Id = ordered ? userA : userB;
+        this.user2Id = ordered ? userB : userA;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Long getUser1Id() {
+        return user1Id;
+    }
+
+    public Long getUser2Id() {
+        return user2Id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.chatapp.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized inbox row: one per (owner, peer) conversation.
+ * Maintained on every sent message and on read, so the inbox is a single indexed read.
+ */
+@Entity
+@Table(name = "conversation_summaries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_summary_owner_peer", columnNames = {"owner_id", "peer_id"}),
+        indexes = @Index(name = "idx_summary_owner_activity", columnList = "owner_id, last_message_at"))
+public class ConversationSummary {
+
+    // Longer messages are cut to this length for the inbox preview
+    public static final int PREVIEW_LENGTH = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "peer_id", nullable = false)
+    private Long peerId;
+
+    @Column(name = "last_message", length = PREVIEW_LENGTH)
+    private String lastMessage;
+
+    @Column(name = "last_message_at", nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    // Newest message id from peer to owner; null until the first one
+    @Column(name = "last_received_id")
+    private Integer lastReceivedId;
+
+    public ConversationSummary() {
+        this.unreadCount = 0;
+        this.lastMessageAt = LocalDateTime.now();
+    }
+
+    public ConversationSummary(Long ownerId, Long peerId, String lastMessage,
+                               LocalDateTime lastMessageAt, int unreadCount) {
+        this.ownerId = ownerId;
+        this.peerId = peerId;
+        this.lastMessage = lastMessage;
+        this.lastMessageAt = lastMessageAt;
+        this.unreadCount = unreadCount;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Long getPeerId() {
+        return peerId;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public Integer getUnreadCount() {
+        return unreadCount;
+    }
+
+    public Integer getLastReceivedId() {
+        return lastReceivedId;
+    }
+}
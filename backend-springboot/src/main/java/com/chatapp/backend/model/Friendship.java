@@ -4,25 +4,31 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "friendships")
+@Table(name = "friendships",
+        uniqueConstraints = @UniqueConstraint(name = "uk_friendship_pair", columnNames = {"user1_id", "user2_id"}),
+        // Partial (status <> 'REJECTED') in the Postgres migration (V9)
+        indexes = {
+                @Index(name = "idx_friendships_user1_active", columnList = "user1_id"),
+                @Index(name = "idx_friendships_user2_active", columnList = "user2_id")
+        })
 public class Friendship {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(nullable = false, length = 50)
-    private String user1;
+    @Column(name = "user1_id", nullable = false)
+    private Long user1Id;
 
-    @Column(nullable = false, length = 50)
-    private String user2;
+    @Column(name = "user2_id", nullable = false)
+    private Long user2Id;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private FriendshipStatus status;
 
-    @Column(name = "initiated_by", nullable = false, length = 50)
-    private String initiatedBy;
+    @Column(name = "initiated_by_id", nullable = false)
+    private Long initiatedById;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -42,10 +48,12 @@ public class Friendship {
         this.status = FriendshipStatus.PENDING;
     }
 
-    public Friendship(String user1, String user2, String initiatedBy) {
-        this.user1 = user1;
-        this.user2 = user2;
-        this.initiatedBy = initiatedBy;
+    // The pair is stored in canonical order (user1Id < user2Id), so each pair has exactly one row
+    public Friendship(Long userA, Long userB, Long initiatedById) {
+        boolean ordered = userA < userB;
+        this.user1Id = ordered ? userA : userB;
+        this.user2Id = ordered ? userB : userA;
+        this.initiatedById = initiatedById;
         this.status = FriendshipStatus.PENDING;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
@@ -60,20 +68,20 @@ public class Friendship {
         this.id = id;
     }
 
-    public String getUser1() {
-        return user1;
+    public Long getUser1Id() {
+        return user1Id;
     }
 
-    public void setUser1(String user1) {
-        this.user1 = user1;
+    public void setUser1Id(Long user1Id) {
+        this.user1Id = user1Id;
     }
 
-    public String getUser2() {
-        return user2;
+    public Long getUser2Id() {
+        return user2Id;
     }
 
-    public void setUser2(String user2) {
-        this.user2 = user2;
+    public void setUser2Id(Long user2Id) {
+        this.user2Id = user2Id;
     }
 
     public FriendshipStatus getStatus() {
@@ -85,12 +93,12 @@ public class Friendship {
         this.updatedAt = LocalDateTime.now();
     }
 
-    public String getInitiatedBy() {
-        return initiatedBy;
+    public Long getInitiatedById() {
+        return initiatedById;
     }
 
-    public void setInitiatedBy(String initiatedBy) {
-        this.initiatedBy = initiatedBy;
+    public void setInitiatedById(Long initiatedById) {
+        this.initiatedById = initiatedById;
     }
 
     public LocalDateTime getCreatedAt() {
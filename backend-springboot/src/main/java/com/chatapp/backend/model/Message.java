@@ -1,82 +1,102 @@
 package com.chatapp.backend.model;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
-public class Message {
-
+@Table(name = "messages",
+        indexes = {
+                @Index(name = "idx_messages_receiver_sender_id", columnList = "receiver_id, sender_id, id"),
+                @Index(name = "idx_messages_conversation_id", columnList = "conversation_id, id")
+        })
+public class Message implements Persistable<Integer> {
+
+    // Assigned by MessageWriter from messages_id_seq (see there), so Spring Data cannot tell
+    // a new message by its id: isNew() follows the persistence callbacks instead
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @MessageIdGenerator.MessageId
     private Integer id;
 
-    @Column(nullable = false, length = 50)
-    private String sender;
+    @Transient
+    private boolean persisted;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Integer conversationId;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
 
-    @Column(nullable = false, length = 50)
-    private String receiver;
+    @Column(name = "receiver_id", nullable = false)
+    private Long receiverId;
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
-    @Column(name = "is_read", nullable = false)
-    private Boolean isRead;
-
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     public Message() {
-        this.isRead = false;
         this.createdAt = LocalDateTime.now();
     }
 
-    public Message(String sender, String receiver, String content) {
-        this.sender = sender;
-        this.receiver = receiver;
+    public Message(Integer conversationId, Long senderId, Long receiverId, String content) {
+        this.conversationId = conversationId;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
         this.content = content;
-        this.isRead = false;
         this.createdAt = LocalDateTime.now();
     }
 
+    @Override
     public Integer getId() {
         return id;
     }
 
-    public void setId(Integer id) {
+    // Give a new message its id; it is inserted on the next save, even after a rolled-back attempt
+    public void assignId(Integer id) {
         this.id = id;
+        this.persisted = false;
     }
 
-    public String getSender() {
-        return sender;
+    @Override
+    public boolean isNew() {
+        return !persisted;
     }
 
-    public void setSender(String sender) {
-        this.sender = sender;
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        this.persisted = true;
     }
 
-    public String getReceiver() {
-        return receiver;
+    public Integer getConversationId() {
+        return conversationId;
     }
 
-    public void setReceiver(String receiver) {
-        this.receiver = receiver;
+    public Long getSenderId() {
+        return senderId;
     }
 
-    public String getContent() {
-        return content;
+    public void setSenderId(Long senderId) {
+        this.senderId = senderId;
     }
 
-    public void setContent(String content) {
-        this.content = content;
+    public Long getReceiverId() {
+        return receiverId;
     }
 
-    public Boolean getIsRead() {
-        return isRead;
+    public void setReceiverId(Long receiverId) {
+        this.receiverId = receiverId;
     }
 
-    public void setIsRead(Boolean isRead) {
-        this.isRead = isRead;
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -0,0 +1,46 @@
+package com.chatapp.backend.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Properties;
+
+/**
+ * messages_id_seq (INCREMENT BY 1), keeping the ids MessageWriter assigns up front
+ * (one query per batch). Falls back to the sequence for a message saved without one.
+ */
+public class MessageIdGenerator extends SequenceStyleGenerator {
+
+    // Marks the id generated by this generator
+    @IdGeneratorType(MessageIdGenerator.class)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public @interface MessageId {
+    }
+
+    @Override
+    public void configure(GeneratorCreationContext creationContext, Properties parameters) throws MappingException {
+        parameters.setProperty(SEQUENCE_PARAM, "messages_id_seq");
+        parameters.setProperty(INCREMENT_PARAM, "1");
+        super.configure(creationContext, parameters);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return currentValue != null ? currentValue : super.generate(session, owner, currentValue, eventType);
+    }
+}
@@ -0,0 +1,53 @@
+package com.chatapp.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Read position of one reader in one conversation.
+ * Every message from peer with id <= lastReadMessageId counts as read,
+ * so marking read is a single-row update instead of one update per message.
+ */
+@Entity
+@Table(name = "read_watermarks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_watermark_reader_peer", columnNames = {"reader_id", "peer_id"}))
+public class ReadWatermark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "reader_id", nullable = false)
+    private Long readerId;
+
+    @Column(name = "peer_id", nullable = false)
+    private Long peerId;
+
+    @Column(name = "last_read_message_id", nullable = false)
+    private Integer lastReadMessageId;
+
+    public ReadWatermark() {
+        this.lastReadMessageId = 0;
+    }
+
+    public ReadWatermark(Long readerId, Long peerId, int lastReadMessageId) {
+        this.readerId = readerId;
+        this.peerId = peerId;
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Long getReaderId() {
+        return readerId;
+    }
+
+    public Long getPeerId() {
+        return peerId;
+    }
+
+    public Integer getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+}
@@ -6,22 +6,23 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = "uk_users_username", columnNames = "username"))
 public class User {
 
-    @Setter
+    // Surrogate key; other tables reference users by this id, not by username
     @Id
-    @Column(name = "username", length = 25)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Setter
+    @Column(name = "username", length = 25, nullable = false)
     private String username;
 
     @Setter
     @Column(name = "password", length = 255)
     private String password;
 
-    @Setter
-    @Column(name = "photo", columnDefinition = "BYTEA")
-    private byte[] photo;
-
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -43,6 +44,10 @@ public class User {
     }
 
     // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -51,10 +56,6 @@ public class User {
         return password;
     }
 
-    public byte[] getPhoto() {
-        return photo;
-    }
-
     public LocalDateTime getCreatedAt() { return createdAt; }
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
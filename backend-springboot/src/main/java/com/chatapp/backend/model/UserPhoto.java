@@ -0,0 +1,86 @@
+package com.chatapp.backend.model;
+
+import jakarta.persistence.*;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Profile photo of a user, kept out of the users row.
+ * Loading a User never reads image bytes; only the photo endpoints touch this table.
+ * The content hash lets conditional requests be answered without reading data.
+ */
+@Entity
+@Table(name = "user_photos")
+public class UserPhoto {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "data", nullable = false, columnDefinition = "BYTEA")
+    private byte[] data;
+
+    // SHA-256 of data (hex), used as the HTTP ETag
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Set when thumbnails could not be created from data (the backfill skips the photo)
+    @Column(name = "thumbnails_failed_at")
+    private LocalDateTime thumbnailsFailedAt;
+
+    public UserPhoto() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public UserPhoto(Long userId, byte[] data) {
+        this.userId = userId;
+        this.data = data;
+        this.contentHash = contentHash(data);
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public static String contentHash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+        this.contentHash = contentHash(data);
+        this.updatedAt = LocalDateTime.now();
+        this.thumbnailsFailedAt = null;
+    }
+
+    public void markThumbnailsFailed() {
+        this.thumbnailsFailedAt = LocalDateTime.now();
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getThumbnailsFailedAt() {
+        return thumbnailsFailedAt;
+    }
+}
@@ -0,0 +1,82 @@
+package com.chatapp.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Downscaled square copy of a user's photo (PNG), generated at upload time.
+ * Avatars are drawn small, so lists fetch a few KB instead of the original.
+ */
+@Entity
+@Table(name = "user_photo_variants",
+        uniqueConstraints = @UniqueConstraint(name = "uk_variant_user_size", columnNames = {"user_id", "size_px"}))
+public class UserPhotoVariant {
+
+    // Edge lengths generated for every upload, smallest first
+    public static final List<Integer> SIZES = List.of(48, 96, 256);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "size_px", nullable = false)
+    private Integer size;
+
+    @Column(name = "data", nullable = false, columnDefinition = "BYTEA")
+    private byte[] data;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public UserPhotoVariant() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public UserPhotoVariant(Long userId, int size, byte[] data) {
+        this.userId = userId;
+        this.size = size;
+        this.data = data;
+        this.contentHash = UserPhoto.contentHash(data);
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Smallest generated size that covers the requested one; null means "use the original"
+    public static Integer sizeFor(Integer requested) {
+        if (requested == null) {
+            return null;
+        }
+        return SIZES.stream().filter(size -> size >= requested).findFirst().orElse(null);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
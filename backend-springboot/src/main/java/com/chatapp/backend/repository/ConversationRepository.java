@@ -0,0 +1,26 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.model.Conversation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Integer> {
+
+    // Conversation id of a canonical pair (user1Id <= user2Id), served by uk_conversation_pair
+    @Query("SELECT c.id FROM Conversation c WHERE c.user1Id = :user1Id AND c.user2Id = :user2Id")
+    Optional<Integer> findIdByUsers(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
+
+    // Lock conversations until the transaction ends, in id order so concurrent writers can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.id IN :ids ORDER BY c.id")
+    List<Conversation> lockAll(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,79 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.model.ConversationSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Integer> {
+
+    // Inbox of a user, most recent activity first (served by idx_summary_owner_activity)
+    List<ConversationSummary> findByOwnerIdOrderByLastMessageAtDesc(Long ownerId);
+
+    // Conversations of a user with unread messages, straight from the inbox rows (never counts messages)
+    @Query("SELECT s.peerId AS peerId, s.unreadCount AS unreadCount FROM ConversationSummary s " +
+            "WHERE s.ownerId = :ownerId AND s.unreadCount > 0 ORDER BY s.lastMessageAt DESC")
+    List<UnreadCount> findUnreadByOwner(@Param("ownerId") Long ownerId);
+
+    // Row of one side of the conversation, locked until the transaction ends (senders wait to add their delta)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ConversationSummary s WHERE s.ownerId = :ownerId AND s.peerId = :peerId")
+    Optional<ConversationSummary> findForUpdate(@Param("ownerId") Long ownerId, @Param("peerId") Long peerId);
+
+    // Record a new message in one side of the conversation, creating the row on the first one.
+    // One statement in the caller's transaction: ON CONFLICT on PostgreSQL (MERGE on H2), so a concurrent
+    // first message waits for the other insert and updates its row instead of failing the transaction.
+    // receivedId is the message id on the receiver's side, 0 on the sender's (lastReceivedId stays null)
+    @Modifying
+    @Query("INSERT INTO ConversationSummary (ownerId, peerId, lastMessage, lastMessageAt, unreadCount, lastReceivedId) " +
+            "VALUES (:ownerId, :peerId, :preview, :sentAt, :unreadDelta, NULLIF(:receivedId, 0)) " +
+            "ON CONFLICT (ownerId, peerId) DO UPDATE SET " +
+            "lastMessage = excluded.lastMessage, lastMessageAt = excluded.lastMessageAt, " +
+            "unreadCount = unreadCount + excluded.unreadCount, " +
+            "lastReceivedId = CASE WHEN COALESCE(lastReceivedId, 0) >= COALESCE(excluded.lastReceivedId, 0) " +
+            "THEN lastReceivedId ELSE excluded.lastReceivedId END")
+    int recordMessage(@Param("ownerId") Long ownerId,
+                      @Param("peerId") Long peerId,
+                      @Param("preview") String preview,
+                      @Param("sentAt") LocalDateTime sentAt,
+                      @Param("unreadDelta") int unreadDelta,
+                      @Param("receivedId") int receivedId);
+
+    // Empty row for a new conversation; an existing one is left as is
+    // (a no-op update rather than DO NOTHING, which Hibernate cannot express on H2)
+    @Modifying
+    @Query("INSERT INTO ConversationSummary (ownerId, peerId, lastMessageAt, unreadCount) " +
+            "VALUES (:ownerId, :peerId, :at, 0) ON CONFLICT (ownerId, peerId) DO UPDATE SET unreadCount = unreadCount")
+    int createIfMissing(@Param("ownerId") Long ownerId, @Param("peerId") Long peerId, @Param("at") LocalDateTime at);
+
+    // Reset unread counter when the owner has read up to upToId and nothing newer arrived since
+    @Modifying
+    @Query("UPDATE ConversationSummary s SET s.unreadCount = 0 " +
+            "WHERE s.ownerId = :ownerId AND s.peerId = :peerId AND s.unreadCount > 0 " +
+            "AND (s.lastReceivedId IS NULL OR s.lastReceivedId <= :upToId)")
+    int markRead(@Param("ownerId") Long ownerId, @Param("peerId") Long peerId, @Param("upToId") int upToId);
+
+    // Overwrite the unread counter with a recount
+    @Modifying
+    @Query("UPDATE ConversationSummary s SET s.unreadCount = :unreadCount " +
+            "WHERE s.ownerId = :ownerId AND s.peerId = :peerId")
+    int setUnreadCount(@Param("ownerId") Long ownerId,
+                       @Param("peerId") Long peerId,
+                       @Param("unreadCount") int unreadCount);
+
+    // Projection for unread counts per peer
+    interface UnreadCount {
+        Long getPeerId();
+
+        int getUnreadCount();
+    }
+}
@@ -1,51 +1,42 @@
 package com.chatapp.backend.repository;
 
 import com.chatapp.backend.model.Friendship;
-import com.chatapp.backend.model.Friendship.FriendshipStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FriendshipRepository extends JpaRepository<Friendship, Integer> {
 
-    // Find all accepted friendships for a user
-    @Query("SELECT f FROM Friendship f WHERE " +
-            "(f.user1 = :username OR f.user2 = :username) " +
-            "AND f.status = 'ACCEPTED'")
-    List<Friendship> findAcceptedFriendships(@Param("username") String username);
-
-    // Find pending friend requests received by a user (initiated by someone else)
-    @Query("SELECT f FROM Friendship f WHERE " +
-            "(f.user1 = :username OR f.user2 = :username) " +
-            "AND f.status = 'PENDING' " +
-            "AND f.initiatedBy != :username")
-    List<Friendship> findPendingRequests(@Param("username") String username);
-
-    // Find friendship between two users (regardless of order)
-    @Query("SELECT f FROM Friendship f WHERE " +
-            "((f.user1 = :user1 AND f.user2 = :user2) OR " +
-            "(f.user1 = :user2 AND f.user2 = :user1))")
-    Optional<Friendship> findByUsers(@Param("user1") String user1,
-                                     @Param("user2") String user2);
-
-    // Check if two users are already friends (ACCEPTED status)
-    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM Friendship f WHERE " +
-            "((f.user1 = :user1 AND f.user2 = :user2) OR " +
-            "(f.user1 = :user2 AND f.user2 = :user1)) " +
-            "AND f.status = 'ACCEPTED'")
-    boolean areFriends(@Param("user1") String user1, @Param("user2") String user2);
-
-    // Check if friendship exists with specific status
-    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM Friendship f WHERE " +
-            "((f.user1 = :user1 AND f.user2 = :user2) OR " +
-            "(f.user1 = :user2 AND f.user2 = :user1)) " +
-            "AND f.status = :status")
-    boolean existsByUsersAndStatus(@Param("user1") String user1,
-                                   @Param("user2") String user2,
-                                   @Param("status") FriendshipStatus status);
-}
\ No newline at end of file
+    // A user's accepted and pending friendships by position in the pair (idx_friendships_user1_active / _user2_active)
+    @Query("SELECT f FROM Friendship f WHERE f.user1Id = :userId AND f.status <> 'REJECTED'")
+    List<Friendship> findActiveByUser1(@Param("userId") Long userId);
+
+    @Query("SELECT f FROM Friendship f WHERE f.user2Id = :userId AND f.status <> 'REJECTED'")
+    List<Friendship> findActiveByUser2(@Param("userId") Long userId);
+
+    // Find friendship between two users (either order)
+    default Optional<Friendship> findByUsers(Long userA, Long userB) {
+        return userA < userB
+                ? findByUser1IdAndUser2Id(userA, userB)
+                : findByUser1IdAndUser2Id(userB, userA);
+    }
+
+    // Find friendship by canonical pair (user1Id < user2Id)
+    Optional<Friendship> findByUser1IdAndUser2Id(Long user1Id, Long user2Id);
+
+    // Turn a rejected pair back into a pending request; returns 0 if the pair has no rejected row
+    @Modifying
+    @Query("UPDATE Friendship f SET f.status = 'PENDING', f.initiatedById = :initiatedById, f.updatedAt = :now " +
+            "WHERE f.user1Id = :user1Id AND f.user2Id = :user2Id AND f.status = 'REJECTED'")
+    int reopenRejected(@Param("user1Id") Long user1Id,
+                       @Param("user2Id") Long user2Id,
+                       @Param("initiatedById") Long initiatedById,
+                       @Param("now") LocalDateTime now);
+}
@@ -1,6 +1,7 @@
 package com.chatapp.backend.repository;
 
 import com.chatapp.backend.model.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -12,24 +13,32 @@ import java.util.List;
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Integer> {
 
-    // Get all messages between two users (in both directions)
-    @Query("SELECT m FROM Message m WHERE " +
-            "(m.sender = :user1 AND m.receiver = :user2) OR " +
-            "(m.sender = :user2 AND m.receiver = :user1) " +
-            "ORDER BY m.createdAt ASC")
-    List<Message> findMessagesBetweenUsers(@Param("user1") String user1,
-                                           @Param("user2") String user2);
+    // The next count message ids, in one round trip (not necessarily returned in order)
+    @Query(value = "SELECT nextval('messages_id_seq') FROM generate_series(1, :count)", nativeQuery = true)
+    List<Long> nextIds(@Param("count") int count);
 
-    // Count unread messages from a specific sender to receiver
+    // All messages of a conversation, oldest first
+    @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId ORDER BY m.id ASC")
+    List<Message> findByConversation(@Param("conversationId") Integer conversationId);
+
+    // Messages newer than sinceId (incremental sync), oldest first
+    @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId AND m.id > :sinceId " +
+            "ORDER BY m.id ASC")
+    List<Message> findByConversationSince(@Param("conversationId") Integer conversationId,
+                                          @Param("sinceId") Integer sinceId);
+
+    // Keyset page: messages older than beforeId, newest first (range scan on idx_messages_conversation_id)
+    @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId AND m.id < :beforeId " +
+            "ORDER BY m.id DESC")
+    List<Message> findPageInConversation(@Param("conversationId") Integer conversationId,
+                                         @Param("beforeId") Integer beforeId,
+                                         Limit limit);
+
+    // Count unread messages from a specific sender to receiver (ids above the receiver's watermark)
     @Query("SELECT COUNT(m) FROM Message m WHERE " +
-            "m.receiver = :receiver AND m.sender = :sender AND m.isRead = false")
-    int countUnreadMessages(@Param("receiver") String receiver,
-                            @Param("sender") String sender);
-
-    // Mark all messages from sender to receiver as read
-    @Modifying
-    @Query("UPDATE Message m SET m.isRead = true WHERE " +
-            "m.receiver = :receiver AND m.sender = :sender AND m.isRead = false")
-    void markMessagesAsRead(@Param("receiver") String receiver,
-                            @Param("sender") String sender);
+            "m.receiverId = :receiverId AND m.senderId = :senderId AND m.id > COALESCE(" +
+            "(SELECT w.lastReadMessageId FROM ReadWatermark w " +
+            "WHERE w.readerId = :receiverId AND w.peerId = :senderId), 0)")
+    int countUnreadMessages(@Param("receiverId") Long receiverId,
+                            @Param("senderId") Long senderId);
 }
\ No newline at end of file
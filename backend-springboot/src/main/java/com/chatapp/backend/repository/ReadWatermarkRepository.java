@@ -0,0 +1,22 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.model.ReadWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReadWatermarkRepository extends JpaRepository<ReadWatermark, Integer> {
+
+    // Move the watermark forward (never back), creating it on the first read. One statement:
+    // ON CONFLICT on PostgreSQL (MERGE on H2), so instances flushing the same reader/peer don't collide
+    @Modifying
+    @Query("INSERT INTO ReadWatermark (readerId, peerId, lastReadMessageId) VALUES (:readerId, :peerId, :upToId) " +
+            "ON CONFLICT (readerId, peerId) DO UPDATE SET " +
+            "lastReadMessageId = GREATEST(lastReadMessageId, excluded.lastReadMessageId)")
+    int advance(@Param("readerId") Long readerId,
+                @Param("peerId") Long peerId,
+                @Param("upToId") Integer upToId);
+}
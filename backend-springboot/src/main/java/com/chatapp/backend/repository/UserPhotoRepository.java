@@ -0,0 +1,53 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.model.UserPhoto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserPhotoRepository extends JpaRepository<UserPhoto, Long> {
+
+    // Validators only - never reads the image bytes
+    @Query("SELECT p.contentHash AS contentHash, p.updatedAt AS updatedAt FROM UserPhoto p " +
+            "WHERE p.userId = :userId")
+    Optional<PhotoVersion> findVersionByUserId(@Param("userId") Long userId);
+
+    // Validators of several users at once, by username (batch photo endpoint)
+    @Query("SELECT u.id AS userId, u.username AS username, p.contentHash AS contentHash, p.updatedAt AS updatedAt " +
+            "FROM UserPhoto p JOIN User u ON u.id = p.userId WHERE u.username IN :usernames")
+    List<UserPhotoVersion> findVersionsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    // Photos without thumbnails that the backfill has not given up on, locked for one batch;
+    // rows another instance is converting are skipped (SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM UserPhoto p WHERE p.thumbnailsFailedAt IS NULL AND NOT EXISTS " +
+            "(SELECT v.id FROM UserPhotoVariant v WHERE v.userId = p.userId)")
+    List<UserPhoto> lockWithoutVariants(Limit limit);
+
+    // Projection for conditional requests
+    interface PhotoVersion {
+        String getContentHash();
+
+        LocalDateTime getUpdatedAt();
+    }
+
+    // Same, tagged with the owner for batch lookups
+    interface UserPhotoVersion extends PhotoVersion {
+        Long getUserId();
+
+        String getUsername();
+    }
+}
@@ -0,0 +1,40 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.model.UserPhotoVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserPhotoVariantRepository extends JpaRepository<UserPhotoVariant, Integer> {
+
+    Optional<UserPhotoVariant> findByUserIdAndSize(Long userId, Integer size);
+
+    // Validators only - never reads the image bytes
+    @Query("SELECT v.contentHash AS contentHash, v.updatedAt AS updatedAt FROM UserPhotoVariant v " +
+            "WHERE v.userId = :userId AND v.size = :size")
+    Optional<UserPhotoRepository.PhotoVersion> findVersionByUserIdAndSize(@Param("userId") Long userId,
+                                                                         @Param("size") Integer size);
+
+    // Variants of several users at one size (batch photo endpoint)
+    @Query("SELECT v FROM UserPhotoVariant v WHERE v.userId IN :userIds AND v.size = :size")
+    List<UserPhotoVariant> findByUserIdInAndSize(@Param("userIds") Collection<Long> userIds,
+                                                 @Param("size") Integer size);
+
+    // Validators of several users at one size, by username - never reads the image bytes
+    @Query("SELECT u.id AS userId, u.username AS username, v.contentHash AS contentHash, v.updatedAt AS updatedAt " +
+            "FROM UserPhotoVariant v JOIN User u ON u.id = v.userId WHERE u.username IN :usernames AND v.size = :size")
+    List<UserPhotoRepository.UserPhotoVersion> findVersionsByUsernameInAndSize(
+            @Param("usernames") Collection<String> usernames, @Param("size") Integer size);
+
+    // Remove all variants of a user (before storing new ones)
+    @Modifying
+    @Query("DELETE FROM UserPhotoVariant v WHERE v.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
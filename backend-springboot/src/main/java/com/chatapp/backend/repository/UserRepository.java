@@ -2,12 +2,51 @@ package com.chatapp.backend.repository;
 
 import com.chatapp.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
+public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    Optional<User> findByUsername(String username);
+
+    // Surrogate id of a username (uk_users_username)
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // Usernames of the given ids (primary key lookups)
+    @Query("SELECT u.id AS id, u.username AS username FROM User u WHERE u.id IN :ids")
+    List<UserKey> findKeysByIds(@Param("ids") Collection<Long> ids);
+
+    // Usernames only (no photo bytes), used to build the search index
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+
+    // Replace a password hash, unless it changed since it was read
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.username = :username AND u.password = :oldHash")
+    int updatePassword(@Param("username") String username,
+                       @Param("oldHash") String oldHash,
+                       @Param("newHash") String newHash);
+
+    // Which of the given usernames exist (no photo bytes)
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Projection: id and username only
+    interface UserKey {
+        Long getId();
+
+        String getUsername();
+    }
+}
@@ -13,12 +13,13 @@ import com.chatapp.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 /**
  * Handles user authentication and registration.
- * - Passwords are hashed with BCrypt
+ * - Passwords are hashed with BCrypt on a dedicated pool (PasswordHasher)
+ * - Hashes with an outdated scheme or cost are re-encoded after a successful login,
+ *   in the background (the login response does not wait for it)
  * - Login returns JWT token (24h validity)
  * - Validates credentials and enforces business rules
  */
@@ -31,11 +32,14 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     public ApiResponse<UserResponse> login(LoginRequest request) {
         // Validate input
         if (request.username() == null || request.username().isBlank()) {
@@ -51,7 +55,7 @@ public class AuthService {
         logger.info("Login attempt for user: {}", request.username());
 
         // Find user by username
-        var userOptional = userRepository.findById(request.username());
+        var userOptional = userRepository.findByUsername(request.username());
 
         if (userOptional.isEmpty()) {
             logger.warn("Login failed - user not found: {}", request.username());
@@ -61,11 +65,13 @@ public class AuthService {
         User user = userOptional.get();
 
         // Verify password using BCrypt
-        if (!passwordEncoder.matches(request.password(), user.getPassword())) {
+        if (!passwordHasher.matches(request.password(), user.getPassword())) {
             logger.warn("Login failed - invalid password for user: {}", request.username());
             throw new AuthenticationException("Invalid username or password");
         }
 
+        rehashIfOutdated(user, request.password());
+
         // Generate JWT token
         String token = jwtUtil.generateToken(user.getUsername());
 
@@ -106,15 +112,35 @@ public class AuthService {
         }
 
         // Hash the password using BCrypt
-        String hashedPassword = passwordEncoder.encode(request.password());
+        String hashedPassword = passwordHasher.encode(request.password());
 
         // Create new user with hashed password
         User newUser = new User(request.username(), hashedPassword);
         userRepository.save(newUser);
+        userSearchIndex.add(newUser.getUsername());
 
         logger.info("User registered successfully: {}", request.username());
 
         UserResponse userResponse = new UserResponse(newUser.getUsername());
         return ApiResponse.success("Registration successful", userResponse);
     }
-}
\ No newline at end of file
+
+    // Old hash stays valid until the new one is stored; a busy pool just means "next login"
+    private void rehashIfOutdated(User user, String rawPassword) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return;
+        }
+        String username = user.getUsername();
+        String oldHash = user.getPassword();
+        passwordHasher.encodeAsync(rawPassword)
+                .thenAccept(newHash -> {
+                    if (userRepository.updatePassword(username, oldHash, newHash) == 1) {
+                        logger.info("Password hash upgraded for user: {}", username);
+                    }
+                })
+                .exceptionally(ex -> {
+                    logger.debug("Password rehash skipped for user: {}", username, ex);
+                    return null;
+                });
+    }
+}
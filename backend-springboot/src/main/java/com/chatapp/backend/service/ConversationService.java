@@ -0,0 +1,103 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.model.Conversation;
+import com.chatapp.backend.repository.ConversationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves the conversation id of a pair of users (by user id, see UserDirectory).
+ * - Ids never change, so resolved pairs are kept in an LRU (chat.conversations.cache.max-size)
+ * - The first message of a pair creates the conversation in its own transaction;
+ *   a concurrent creator loses on uk_conversation_pair and reads the winner's id
+ */
+@Service
+public class ConversationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationService.class);
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${chat.conversations.cache.max-size:10000}")
+    private int maxCacheSize;
+
+    // Canonical pair → conversation id, access-ordered; guarded by itself
+    private final LinkedHashMap<Pair, Integer> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Pair, Integer> eldest) {
+            return size() > maxCacheSize;
+        }
+    };
+
+    private TransactionTemplate createTemplate;
+
+    // Two users in canonical order (user1 <= user2)
+    private record Pair(long user1, long user2) {
+        static Pair of(long userA, long userB) {
+            return userA <= userB ? new Pair(userA, userB) : new Pair(userB, userA);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        createTemplate = new TransactionTemplate(transactionManager);
+        createTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Conversation id of the pair, if they ever exchanged a message
+    public Optional<Integer> findId(long userA, long userB) {
+        Pair pair = Pair.of(userA, userB);
+        synchronized (cache) {
+            Integer cached = cache.get(pair);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        Optional<Integer> id = conversationRepository.findIdByUsers(pair.user1(), pair.user2());
+        id.ifPresent(found -> remember(pair, found));
+        return id;
+    }
+
+    // Conversation id of the pair, created on first use
+    public int getOrCreateId(long userA, long userB) {
+        Optional<Integer> existing = findId(userA, userB);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        Pair pair = Pair.of(userA, userB);
+        Integer id;
+        try {
+            id = createTemplate.execute(status ->
+                    conversationRepository.saveAndFlush(new Conversation(pair.user1(), pair.user2())).getId());
+            logger.info("Conversation {} created: {} and {}", id, pair.user1(), pair.user2());
+        } catch (DataIntegrityViolationException e) {
+            id = conversationRepository.findIdByUsers(pair.user1(), pair.user2()).orElseThrow(() -> e);
+        }
+        remember(pair, id);
+        return id;
+    }
+
+    private void remember(Pair pair, Integer id) {
+        synchronized (cache) {
+            cache.put(pair, id);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.model.Friendship;
+import com.chatapp.backend.model.Friendship.FriendshipStatus;
+import com.chatapp.backend.repository.FriendshipRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory friendship graph, so friend and request lists skip the database once warm.
+ * - Usernames map to dense int ids; each user's edges are sorted int arrays
+ * - Per user: friends and incoming pending requests (rejected pairs are not kept)
+ * - Loaded lazily per user (two index seeks) and bounded by an LRU (chat.friends.cache.max-users)
+ * - Changes are written through after commit (FriendshipChangedEvent)
+ * - Entries expire chat.friends.cache.ttl-ms after loading, so changes made on another instance
+ *   show up within the TTL; write paths check the database (uk_friendship_pair), never this graph
+ * Metrics: chat.friend_graph.loads, chat.friend_graph.users
+ */
+@Component
+public class FriendGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(FriendGraph.class);
+
+    private static final int[] EMPTY = new int[0];
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.friends.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${chat.friends.cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    // Username dictionary (ids are never reused; one small entry per user seen)
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // user id → edges, access-ordered for LRU eviction; guarded by itself
+    private final LinkedHashMap<Integer, Edges> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Edges> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // Bumped on every applied change; a load that raced with a change is not cached
+    private long changes;
+
+    private Counter loads;
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    // loadedAt (nanoClock) is kept by write-through updates, so the TTL bounds staleness from other instances
+    private record Edges(int[] friends, int[] incoming, long loadedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        loads = meterRegistry.counter("chat.friend_graph.loads");
+        meterRegistry.gauge("chat.friend_graph.users", cache, map -> {
+            synchronized (map) {
+                return map.size();
+            }
+        });
+    }
+
+    public List<String> getFriends(String username) {
+        return namesOf(edges(username).friends());
+    }
+
+    // Users who sent username a request that is still pending
+    public List<String> getIncomingRequests(String username) {
+        return namesOf(edges(username).incoming());
+    }
+
+    // Runs after the friend request transaction commits; users not in the cache load fresh later
+    @TransactionalEventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        int initiator = idOf(event.initiatedBy());
+        int recipient = idOf(event.recipient());
+
+        synchronized (cache) {
+            changes++;
+            switch (event.status()) {
+                case PENDING -> update(recipient, e -> new Edges(e.friends(), with(e.incoming(), initiator),
+                        e.loadedAt()));
+                case ACCEPTED -> {
+                    update(initiator, e -> new Edges(with(e.friends(), recipient),
+                            without(e.incoming(), recipient), e.loadedAt()));
+                    update(recipient, e -> new Edges(with(e.friends(), initiator),
+                            without(e.incoming(), initiator), e.loadedAt()));
+                }
+                // A rejected pair is neither friends nor pending, whatever it was before
+                case REJECTED -> {
+                    update(initiator, e -> new Edges(without(e.friends(), recipient),
+                            without(e.incoming(), recipient), e.loadedAt()));
+                    update(recipient, e -> new Edges(without(e.friends(), initiator),
+                            without(e.incoming(), initiator), e.loadedAt()));
+                }
+            }
+        }
+    }
+
+    private Edges edges(String username) {
+        int id = idOf(username);
+        long seen;
+        synchronized (cache) {
+            Edges cached = cache.get(id);
+            if (cached != null && nanoClock.getAsLong() - cached.loadedAt() < TimeUnit.MILLISECONDS.toNanos(ttlMs)) {
+                return cached;
+            }
+            seen = changes;
+        }
+
+        Edges loaded = load(username);
+        synchronized (cache) {
+            if (changes == seen) {
+                cache.put(id, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private Edges load(String username) {
+        IntStream.Builder friends = IntStream.builder();
+        IntStream.Builder incoming = IntStream.builder();
+        long loadedAt = nanoClock.getAsLong();
+
+        // A username without an account has no friendships
+        Long userId = userDirectory.findId(username).orElse(null);
+        List<Friendship> friendships = new ArrayList<>();
+        if (userId != null) {
+            friendships.addAll(friendshipRepository.findActiveByUser1(userId));
+            friendships.addAll(friendshipRepository.findActiveByUser2(userId));
+        }
+
+        // Rows hold user ids; the graph's dictionary is keyed by username
+        Map<Long, String> others = userDirectory.usernamesOf(friendships.stream()
+                .map(friendship -> otherUser(friendship, userId))
+                .toList());
+
+        for (Friendship friendship : friendships) {
+            int otherId = idOf(others.get(otherUser(friendship, userId)));
+            if (friendship.getStatus() == FriendshipStatus.ACCEPTED) {
+                friends.add(otherId);
+            } else if (!friendship.getInitiatedById().equals(userId)) {
+                incoming.add(otherId);
+            }
+        }
+
+        loads.increment();
+        logger.debug("Friend graph loaded for user: {}", username);
+        return new Edges(sorted(friends), sorted(incoming), loadedAt);
+    }
+
+    private static Long otherUser(Friendship friendship, Long userId) {
+        return friendship.getUser1Id().equals(userId) ? friendship.getUser2Id() : friendship.getUser1Id();
+    }
+
+    // Caller holds the cache lock
+    private void update(int id, UnaryOperator<Edges> change) {
+        Edges cached = cache.get(id);
+        if (cached != null) {
+            cache.put(id, change.apply(cached));
+        }
+    }
+
+    private int idOf(String username) {
+        return ids.computeIfAbsent(username, key -> {
+            synchronized (names) {
+                names.add(key);
+                return names.size() - 1;
+            }
+        });
+    }
+
+    private List<String> namesOf(int[] set) {
+        List<String> result = new ArrayList<>(set.length);
+        synchronized (names) {
+            for (int id : set) {
+                result.add(names.get(id));
+            }
+        }
+        return result;
+    }
+
+    private static int[] sorted(IntStream.Builder builder) {
+        int[] set = builder.build().sorted().distinct().toArray();
+        return set.length == 0 ? EMPTY : set;
+    }
+
+    private static int[] with(int[] set, int id) {
+        int index = Arrays.binarySearch(set, id);
+        if (index >= 0) {
+            return set;
+        }
+        int insertAt = -index - 1;
+        int[] result = new int[set.length + 1];
+        System.arraycopy(set, 0, result, 0, insertAt);
+        result[insertAt] = id;
+        System.arraycopy(set, insertAt, result, insertAt + 1, set.length - insertAt);
+        return result;
+    }
+
+    private static int[] without(int[] set, int id) {
+        int index = Arrays.binarySearch(set, id);
+        if (index < 0) {
+            return set;
+        }
+        if (set.length == 1) {
+            return EMPTY;
+        }
+        int[] result = new int[set.length - 1];
+        System.arraycopy(set, 0, result, 0, index);
+        System.arraycopy(set, index + 1, result, index, set.length - index - 1);
+        return result;
+    }
+}
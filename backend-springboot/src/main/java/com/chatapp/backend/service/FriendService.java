@@ -10,15 +10,18 @@ import com.chatapp.backend.repository.FriendshipRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * Manages friendship relationships and requests.
  * Uses unified Friendship model with status: PENDING → ACCEPTED/REJECTED
+ * Reads and duplicate checks go through the in-memory FriendGraph.
  */
 @Service
 public class FriendService {
@@ -28,19 +31,22 @@ public class FriendService {
     @Autowired
     private FriendshipRepository friendshipRepository;
 
+    @Autowired
+    private FriendGraph friendGraph;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public ApiResponse<List<String>> getFriends(String username) {
         logger.info("Fetching friends for user: {}", username);
 
-        List<Friendship> friendships = friendshipRepository.findAcceptedFriendships(username);
-        List<String> friendNames = new ArrayList<>();
-
-        for (Friendship friendship : friendships) {
-            if (friendship.getUser1().equals(username)) {
-                friendNames.add(friendship.getUser2());
-            } else {
-                friendNames.add(friendship.getUser1());
-            }
-        }
+        List<String> friendNames = friendGraph.getFriends(username);
 
         logger.info("Found {} friends for user: {}", friendNames.size(), username);
         return ApiResponse.success("Friends retrieved", friendNames);
@@ -49,12 +55,7 @@ public class FriendService {
     public ApiResponse<List<String>> getFriendRequests(String username) {
         logger.info("Fetching friend requests for user: {}", username);
 
-        List<Friendship> requests = friendshipRepository.findPendingRequests(username);
-        List<String> senderNames = new ArrayList<>();
-
-        for (Friendship request : requests) {
-            senderNames.add(request.getInitiatedBy());
-        }
+        List<String> senderNames = friendGraph.getIncomingRequests(username);
 
         logger.info("Found {} friend requests for user: {}", senderNames.size(), username);
         return ApiResponse.success("Friend requests retrieved", senderNames);
@@ -75,21 +76,39 @@ public class FriendService {
 
         logger.info("Friend request: {} → {}", sender, receiver);
 
+        long senderId = userDirectory.requireId(sender);
+        long receiverId = userDirectory.requireId(receiver);
+
+        // Checked against the database: the friend graph may lag behind changes made on another instance
+        FriendshipStatus existing = friendshipRepository.findByUsers(senderId, receiverId)
+                .map(Friendship::getStatus)
+                .orElse(null);
+
         // Check if already friends
-        if (friendshipRepository.areFriends(sender, receiver)) {
+        if (existing == FriendshipStatus.ACCEPTED) {
             logger.warn("Friend request failed - already friends: {} and {}", sender, receiver);
             throw new DuplicateResourceException("You are already friends");
         }
 
         // Check if pending request already exists
-        if (friendshipRepository.existsByUsersAndStatus(sender, receiver, FriendshipStatus.PENDING)) {
+        if (existing == FriendshipStatus.PENDING) {
             logger.warn("Friend request failed - request already exists: {} → {}", sender, receiver);
             throw new DuplicateResourceException("Friend request already sent");
         }
 
-        // Create new friendship request
-        Friendship friendship = new Friendship(sender, receiver, sender);
-        friendshipRepository.save(friendship);
+        // Reopen a rejected pair, otherwise insert; the pair's unique key turns a racing duplicate into a conflict
+        Friendship friendship = new Friendship(senderId, receiverId, senderId);
+        int reopened = friendshipRepository.reopenRejected(
+                friendship.getUser1Id(), friendship.getUser2Id(), senderId, LocalDateTime.now());
+        if (reopened == 0) {
+            try {
+                friendshipRepository.saveAndFlush(friendship);
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Friend request failed - pair already exists: {} → {}", sender, receiver);
+                throw new DuplicateResourceException("Friend request already sent");
+            }
+        }
+        eventPublisher.publishEvent(new FriendshipChangedEvent(sender, receiver, FriendshipStatus.PENDING));
 
         logger.info("Friend request sent successfully: {} → {}", sender, receiver);
         return ApiResponse.success("Friend request sent", null);
@@ -100,7 +119,9 @@ public class FriendService {
         logger.info("Accepting friend request: {} accepting {}", accepter, requester);
 
         // Find the friendship
-        var friendshipOpt = friendshipRepository.findByUsers(accepter, requester);
+        long accepterId = userDirectory.requireId(accepter);
+        var friendshipOpt = userDirectory.findId(requester)
+                .flatMap(requesterId -> friendshipRepository.findByUsers(accepterId, requesterId));
 
         if (friendshipOpt.isEmpty()) {
             logger.warn("Accept failed - friend request not found: {} ← {}", accepter, requester);
@@ -116,7 +137,7 @@ public class FriendService {
         }
 
         // Verify the accepter is not the one who initiated it
-        if (friendship.getInitiatedBy().equals(accepter)) {
+        if (friendship.getInitiatedById().equals(accepterId)) {
             logger.warn("Accept failed - cannot accept own request: {}", accepter);
             throw new ValidationException("Cannot accept your own friend request");
         }
@@ -124,6 +145,10 @@ public class FriendService {
         // Update status to accepted
         friendship.setStatus(FriendshipStatus.ACCEPTED);
         friendshipRepository.save(friendship);
+        eventPublisher.publishEvent(new FriendshipChangedEvent(requester, accepter, FriendshipStatus.ACCEPTED));
+
+        // New friends appear in each other's inbox right away
+        inboxService.openConversation(accepterId, friendship.getInitiatedById());
 
         logger.info("Friend request accepted: {} and {} are now friends", accepter, requester);
         return ApiResponse.success("Friend request accepted", null);
@@ -134,7 +159,9 @@ public class FriendService {
         logger.info("Rejecting friend request: {} rejecting {}", rejecter, requester);
 
         // Find the friendship
-        var friendshipOpt = friendshipRepository.findByUsers(rejecter, requester);
+        long rejecterId = userDirectory.requireId(rejecter);
+        var friendshipOpt = userDirectory.findId(requester)
+                .flatMap(requesterId -> friendshipRepository.findByUsers(rejecterId, requesterId));
 
         if (friendshipOpt.isEmpty()) {
             logger.warn("Reject failed - friend request not found: {} ← {}", rejecter, requester);
@@ -143,9 +170,16 @@ public class FriendService {
 
         Friendship friendship = friendshipOpt.get();
 
+        // Verify it's pending (an accepted pair is not turned back into a rejected request)
+        if (friendship.getStatus() != FriendshipStatus.PENDING) {
+            logger.warn("Reject failed - request already processed: {} ← {}", rejecter, requester);
+            throw new ValidationException("Friend request already processed");
+        }
+
         // Update status to rejected
         friendship.setStatus(FriendshipStatus.REJECTED);
         friendshipRepository.save(friendship);
+        eventPublisher.publishEvent(new FriendshipChangedEvent(requester, rejecter, FriendshipStatus.REJECTED));
 
         logger.info("Friend request rejected: {} rejected {}", rejecter, requester);
         return ApiResponse.success("Friend request rejected", null);
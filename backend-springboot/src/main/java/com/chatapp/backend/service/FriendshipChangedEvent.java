@@ -0,0 +1,9 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.model.Friendship.FriendshipStatus;
+
+/**
+ * Published by FriendService when a friend request is sent, accepted or rejected.
+ * Applied to the FriendGraph once the transaction commits.
+ */
+public record FriendshipChangedEvent(String initiatedBy, String recipient, FriendshipStatus status) {}
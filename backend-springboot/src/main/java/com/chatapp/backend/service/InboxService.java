@@ -0,0 +1,118 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.InboxEntryResponse;
+import com.chatapp.backend.model.ConversationSummary;
+import com.chatapp.backend.repository.ConversationSummaryRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the materialized inbox (conversation_summaries).
+ * - Each conversation has one row per participant (owner → peer, by user id; the API sees usernames)
+ * - Updated when a message is sent and when the owner reads the conversation
+ * - A read zeroes the unread count only if no newer message arrived since; otherwise the count
+ *   is recomputed from the read watermark under the row lock
+ * - Rows are created when a friendship is accepted or on the first message, by an upsert on
+ *   uk_summary_owner_peer in the caller's transaction (no second connection while it holds locks)
+ */
+@Service
+public class InboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboxService.class);
+
+    @Autowired
+    private ConversationSummaryRepository summaryRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    public ApiResponse<List<InboxEntryResponse>> getInbox(String owner) {
+        logger.info("Fetching inbox for user: {}", owner);
+
+        List<ConversationSummary> rows = userDirectory.findId(owner)
+                .map(summaryRepository::findByOwnerIdOrderByLastMessageAtDesc)
+                .orElse(List.of());
+        Map<Long, String> peers = userDirectory.usernamesOf(rows.stream().map(ConversationSummary::getPeerId).toList());
+        List<InboxEntryResponse> entries = new ArrayList<>(rows.size());
+
+        for (ConversationSummary row : rows) {
+            entries.add(new InboxEntryResponse(peers.get(row.getPeerId()), row.getUnreadCount(),
+                    row.getLastMessage(), row.getLastMessageAt()));
+        }
+
+        logger.info("Found {} conversations for user: {}", entries.size(), owner);
+        return ApiResponse.success("Inbox retrieved", entries);
+    }
+
+    // Peer → unread count for the owner's conversations with unread messages, most recent first
+    public Map<String, Integer> getUnreadCounts(String owner) {
+        List<ConversationSummaryRepository.UnreadCount> rows = userDirectory.findId(owner)
+                .map(summaryRepository::findUnreadByOwner)
+                .orElse(List.of());
+        Map<Long, String> peers = userDirectory.usernamesOf(
+                rows.stream().map(ConversationSummaryRepository.UnreadCount::getPeerId).toList());
+
+        Map<String, Integer> unreadByPeer = new LinkedHashMap<>();
+        for (ConversationSummaryRepository.UnreadCount row : rows) {
+            unreadByPeer.put(peers.get(row.getPeerId()), row.getUnreadCount());
+        }
+        return unreadByPeer;
+    }
+
+    // Called inside the sending transaction
+    @Transactional
+    public void recordMessage(Long senderId, Long receiverId, int messageId, String content, LocalDateTime sentAt) {
+        String preview = preview(content);
+        summaryRepository.recordMessage(senderId, receiverId, preview, sentAt, 0, 0);
+        summaryRepository.recordMessage(receiverId, senderId, preview, sentAt, 1, messageId);
+    }
+
+    // Called after the owner's read watermark was advanced to upToId, in the same transaction
+    @Transactional
+    public void markRead(Long ownerId, Long peerId, int upToId) {
+        if (summaryRepository.markRead(ownerId, peerId, upToId) > 0) {
+            return;
+        }
+
+        // Nothing unread, or messages newer than upToId arrived since the read: recount those.
+        // Senders that commit after the lock add their delta on top of the recount.
+        summaryRepository.findForUpdate(ownerId, peerId)
+                .filter(row -> row.getUnreadCount() > 0)
+                .ifPresent(row -> summaryRepository.setUnreadCount(ownerId, peerId,
+                        messageRepository.countUnreadMessages(ownerId, peerId)));
+    }
+
+    // Create empty rows for both sides so new friends show up in the inbox
+    @Transactional
+    public void openConversation(Long user1Id, Long user2Id) {
+        LocalDateTime now = LocalDateTime.now();
+        summaryRepository.createIfMissing(user1Id, user2Id, now);
+        summaryRepository.createIfMissing(user2Id, user1Id, now);
+    }
+
+    // First PREVIEW_LENGTH characters, never splitting a surrogate pair (emoji)
+    private String preview(String content) {
+        if (content.length() <= ConversationSummary.PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = ConversationSummary.PREVIEW_LENGTH;
+        if (Character.isHighSurrogate(content.charAt(end - 1)) && Character.isLowSurrogate(content.charAt(end))) {
+            end--;
+        }
+        return content.substring(0, end);
+    }
+}
@@ -0,0 +1,35 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for conversation pages.
+ * Wraps the id of the oldest message already returned; clients pass it back unchanged.
+ */
+final class MessageCursor {
+
+    private static final String PREFIX = "m:";
+
+    private MessageCursor() {
+    }
+
+    static String encode(int messageId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + messageId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Unknown cursor format");
+            }
+            return Integer.parseInt(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
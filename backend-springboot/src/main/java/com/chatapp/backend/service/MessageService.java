@@ -1,32 +1,74 @@
 package com.chatapp.backend.service;
 
 import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.MessagePageResponse;
 import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.exception.ChatAppException;
 import com.chatapp.backend.exception.ValidationException;
 import com.chatapp.backend.model.Message;
 import com.chatapp.backend.repository.MessageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Handles messaging operations between users.
- * Messages are marked as read when retrieved by the receiver.
+ * Reads are read-only; the read receipt they produce is buffered (ReadReceiptBuffer)
+ * and written behind, together with the materialized inbox (InboxService).
+ * New messages are pushed to the receiver's WebSocket sessions after commit.
+ * Writes go through MessageWriter (optionally group-committed).
+ * Conversation reads are range scans on the pair's conversation id (ConversationService).
+ * Rows reference users by id; usernames are resolved through UserDirectory.
  */
 @Service
 public class MessageService {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
 
+    // Page size bounds for paginated history
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private MessageRepository messageRepository;
 
-    @Transactional
+    @Autowired
+    private MessageWriter messageWriter;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private ReadReceiptBuffer readReceiptBuffer;
+
+    @Autowired
+    private InboxService inboxService;
+
+    // How long a sender waits for its batch to commit
+    @Value("${chat.messages.batch.ack-timeout-ms:5000}")
+    private long sendAckTimeoutMs;
+
+    /**
+     * Not transactional: with group commit enabled the request thread only waits for the batch.
+     * A batch that doesn't commit in time is still queued and may commit later, so the send is
+     * reported as accepted, not failed (a failure would make the client send it again).
+     */
     public ApiResponse<String> sendMessage(String sender, String receiver, String messageText) {
         // Validation
         if (sender == null || sender.isBlank()) {
@@ -41,42 +83,163 @@ public class MessageService {
 
         logger.info("Sending message: {} → {}", sender, receiver);
 
+        long senderId = userDirectory.requireId(sender);
+        long receiverId = userDirectory.requireId(receiver);
+
         try {
-            Message msg = new Message(sender, receiver, messageText);
-            messageRepository.save(msg);
+            int conversationId = conversationService.getOrCreateId(senderId, receiverId);
+            Message msg = new Message(conversationId, senderId, receiverId, messageText);
+            if (messageWriter.isBatchingEnabled()) {
+                messageWriter.submit(msg).get(sendAckTimeoutMs, TimeUnit.MILLISECONDS);
+            } else {
+                messageWriter.write(msg);
+            }
 
             logger.info("Message sent successfully: {} → {}", sender, receiver);
             return ApiResponse.success("Message sent", null);
-        } catch (Exception e) {
+        } catch (TimeoutException e) {
+            logger.warn("Message not committed within {} ms, accepted as pending: {} → {}",
+                    sendAckTimeoutMs, sender, receiver);
+            return ApiResponse.success("Message accepted", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted waiting for message commit, accepted as pending: {} → {}", sender, receiver);
+            return ApiResponse.success("Message accepted", null);
+        } catch (ExecutionException e) {
+            logger.error("Failed to send message: {} → {}", sender, receiver, e.getCause());
+            throw new ChatAppException("Failed to send message", e.getCause());
+        } catch (RuntimeException e) {
             logger.error("Failed to send message: {} → {}", sender, receiver, e);
-            throw new RuntimeException("Failed to send message");
+            throw new ChatAppException("Failed to send message", e);
         }
     }
 
-    @Transactional
     public ApiResponse<List<MessageResponse>> getMessages(String user1, String receiver) {
-        logger.info("Fetching messages between: {} and {}", user1, receiver);
+        return getMessages(user1, receiver, null);
+    }
 
-        List<Message> messages = messageRepository.findMessagesBetweenUsers(user1, receiver);
+    /**
+     * Conversation messages, oldest first.
+     * With sinceId only messages newer than that id are returned (incremental sync).
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<List<MessageResponse>> getMessages(String user1, String receiver, Integer sinceId) {
+        logger.info("Fetching messages between: {} and {} (since {})", user1, receiver, sinceId);
+
+        // No conversation yet means no messages
+        Long peerId = userDirectory.findId(receiver).orElse(null);
+        List<Message> messages = findConversation(user1, peerId)
+                .map(conversationId -> sinceId == null
+                        ? messageRepository.findByConversation(conversationId)
+                        : messageRepository.findByConversationSince(conversationId, sinceId))
+                .orElse(List.of());
         List<MessageResponse> messageResponses = new ArrayList<>();
 
         for (Message msg : messages) {
-            messageResponses.add(new MessageResponse(msg.getSender(), msg.getContent()));
+            messageResponses.add(toResponse(msg, user1, receiver, peerId));
         }
 
-        // Mark all messages from receiver to user1 as read
-        messageRepository.markMessagesAsRead(user1, receiver);
+        // Messages from receiver to user1 are now read (flushed later)
+        recordRead(user1, receiver, peerId, messages);
 
         logger.info("Retrieved {} messages between {} and {}", messages.size(), user1, receiver);
         return ApiResponse.success("Messages retrieved", messageResponses);
     }
 
+    /**
+     * Keyset-paginated history, newest page first.
+     * Cost is O(limit) regardless of conversation length.
+     * cursor (from a previous page) takes precedence over beforeId; neither means the latest page.
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<MessagePageResponse> getMessagePage(String user1, String receiver,
+                                                           String cursor, Integer beforeId,
+                                                           Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Integer seekId = cursor != null ? Integer.valueOf(MessageCursor.decode(cursor)) : beforeId;
+        boolean latestPage = seekId == null;
+
+        logger.info("Fetching message page between: {} and {} (before {}, limit {})",
+                user1, receiver, seekId, pageSize);
+
+        // Fetch one extra row to learn whether older history exists
+        Long peerId = userDirectory.findId(receiver).orElse(null);
+        List<Message> rows = findConversation(user1, peerId)
+                .map(conversationId -> messageRepository.findPageInConversation(conversationId,
+                        latestPage ? Integer.MAX_VALUE : seekId, Limit.of(pageSize + 1)))
+                .orElse(List.of());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Message> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        List<MessageResponse> messageResponses = new ArrayList<>(page.size());
+        for (Message msg : page) {
+            messageResponses.add(toResponse(msg, user1, receiver, peerId));
+        }
+        Collections.reverse(messageResponses);
+
+        String nextCursor = hasMore ? MessageCursor.encode(page.get(page.size() - 1).getId()) : null;
+
+        // Opening the latest page counts as reading the conversation
+        if (latestPage) {
+            recordRead(user1, receiver, peerId, page);
+        }
+
+        logger.info("Retrieved {} messages between {} and {} (more: {})",
+                messageResponses.size(), user1, receiver, hasMore);
+        return ApiResponse.success("Messages retrieved",
+                new MessagePageResponse(messageResponses, nextCursor));
+    }
+
+    // Conversation id of reader and peer; empty if either has no account or they never talked
+    private Optional<Integer> findConversation(String reader, Long peerId) {
+        if (peerId == null) {
+            return Optional.empty();
+        }
+        return userDirectory.findId(reader).flatMap(readerId -> conversationService.findId(readerId, peerId));
+    }
+
+    // Both users of a conversation are known, so the sender's name needs no lookup
+    private static MessageResponse toResponse(Message msg, String reader, String peer, Long peerId) {
+        String sender = msg.getSenderId().equals(peerId) ? peer : reader;
+        return new MessageResponse(msg.getId(), sender, msg.getContent());
+    }
+
+    // Buffer a read receipt for the newest message from peer in the given rows
+    private void recordRead(String reader, String peer, Long peerId, List<Message> messages) {
+        messages.stream()
+                .filter(msg -> msg.getSenderId().equals(peerId))
+                .mapToInt(Message::getId)
+                .max()
+                .ifPresent(upToId -> readReceiptBuffer.record(reader, peer, upToId));
+    }
+
     public ApiResponse<Integer> checkNotification(String receiver, String sender) {
         logger.debug("Checking unread count: {} ← {}", receiver, sender);
 
-        int unreadCount = messageRepository.countUnreadMessages(receiver, sender);
+        int unreadCount = userDirectory.findId(receiver)
+                .flatMap(receiverId -> userDirectory.findId(sender)
+                        .map(senderId -> messageRepository.countUnreadMessages(receiverId, senderId)))
+                .orElse(0);
 
         logger.debug("Unread messages for {}: {}", receiver, unreadCount);
         return ApiResponse.success("Notification count", unreadCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * Unread counts for all conversations of a user (sender → count).
+     * Read from the materialized inbox, like the friend list badges; no messages are counted.
+     */
+    public ApiResponse<Map<String, Integer>> getUnreadSummary(String receiver) {
+        logger.debug("Fetching unread summary for: {}", receiver);
+
+        Map<String, Integer> unreadBySender = inboxService.getUnreadCounts(receiver);
+
+        logger.debug("Unread conversations for {}: {}", receiver, unreadBySender.size());
+        return ApiResponse.success("Unread summary", unreadBySender);
+    }
+}
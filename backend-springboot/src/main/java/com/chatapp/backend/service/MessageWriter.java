@@ -0,0 +1,220 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.model.Message;
+import com.chatapp.backend.repository.ConversationRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.websocket.MessageSentEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists new messages, either directly or through a group-commit queue.
+ * - Direct: one transaction per message
+ * - Batched: messages are queued and flushed by a single writer thread,
+ *   one transaction and one JDBC batch per flush
+ * A flush happens when max-size messages are waiting or max-latency-ms has passed
+ * since the first one arrived. Each caller gets its own future, completed after commit.
+ * Either way the conversations are locked before ids are drawn, so ids within a conversation
+ * increase in commit order (clients sync with sinceId and never see a smaller id commit later).
+ * Ids come from messages_id_seq one value at a time (INCREMENT BY 1), all of a flush in one query:
+ * - Hibernate's pooled allocation (blocks of 50) would skip that query, but every instance draws
+ *   from its own block, so an id drawn early on one instance can commit after a larger one
+ * - The price is one nextval query per flush; the inserts still go out as one JDBC batch
+ */
+@Component
+public class MessageWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriter.class);
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${chat.messages.batch.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${chat.messages.batch.max-size:50}")
+    private int maxBatchSize;
+
+    @Value("${chat.messages.batch.max-latency-ms:5}")
+    private long maxLatencyMs;
+
+    @Value("${chat.messages.batch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingMessage> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // A queued message and the future its sender is waiting on
+    private record PendingMessage(Message message, CompletableFuture<Message> result) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!batchingEnabled) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        flusher = new Thread(this::runFlusher, "message-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Message group commit enabled (max {} messages / {} ms per batch)",
+                maxBatchSize, maxLatencyMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything still queued is written before the context goes away
+        List<PendingMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    public boolean isBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    // Write a single message in the caller's transaction
+    @Transactional
+    public Message write(Message message) {
+        persist(List.of(message));
+        return message;
+    }
+
+    /**
+     * Queue a message for the next batch.
+     * The future completes once the batch containing it has committed.
+     * If the queue is full the message is written directly instead.
+     */
+    public CompletableFuture<Message> submit(Message message) {
+        if (!batchingEnabled) {
+            throw new IllegalStateException("Message batching is disabled");
+        }
+        PendingMessage pending = new PendingMessage(message, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            logger.warn("Message queue unavailable, writing directly: {} → {}",
+                    message.getSenderId(), message.getReceiverId());
+            flush(List.of(pending));
+        }
+        return pending.result();
+    }
+
+    private void runFlusher() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+
+                // Collect more messages until the batch is full or the latency budget is spent
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // Leftovers are picked up by stop()
+                    batch.forEach(queue::offer);
+                    return;
+                }
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<Message> messages = batch.stream().map(PendingMessage::message).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(messages));
+            batch.forEach(pending -> pending.result().complete(pending.message()));
+            logger.debug("Flushed {} messages in one transaction", batch.size());
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // One bad message must not fail the others: retry them one by one
+            logger.warn("Batch of {} messages failed, retrying individually", batch.size(), e);
+            batch.forEach(pending -> flush(List.of(pending)));
+        }
+    }
+
+    // Insert the messages, update both inboxes and queue the pushes (sent after commit)
+    private void persist(List<Message> messages) {
+        conversationRepository.lockAll(messages.stream().map(Message::getConversationId).distinct().toList());
+        List<Long> ids = new ArrayList<>(messageRepository.nextIds(messages.size()));
+        Collections.sort(ids);
+        for (int i = 0; i < messages.size(); i++) {
+            messages.get(i).assignId(ids.get(i).intValue());
+        }
+        messageRepository.saveAll(messages);
+        for (Message msg : messages) {
+            inboxService.recordMessage(msg.getSenderId(), msg.getReceiverId(), msg.getId(), msg.getContent(),
+                    msg.getCreatedAt());
+            // Pushes are keyed by username (cached in UserDirectory)
+            String sender = userDirectory.usernameOf(msg.getSenderId());
+            String receiver = userDirectory.usernameOf(msg.getReceiverId());
+            eventPublisher.publishEvent(new MessageSentEvent(receiver,
+                    new MessageResponse(msg.getId(), sender, msg.getContent())));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing (BCrypt) on its own bounded pool instead of request threads.
+ * - One thread per CPU core by default: hashing is CPU-bound, more threads only add queuing
+ * - At most queue-capacity requests wait; beyond that callers fail fast with 503 + Retry-After
+ * A login storm can therefore not occupy every Tomcat worker, so cheap endpoints
+ * (messages, polls) keep being served.
+ * Background rehashes (encodeAsync) run on one low-priority thread with a tiny queue of their own,
+ * so they never take a slot from a login; when that queue is full the rehash is dropped.
+ * Metrics: chat.auth.hashing.rejected, chat.auth.hashing.queued
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    // Rehashes waiting for the background thread; more are dropped (retried on a later login)
+    private static final int REHASH_QUEUE_CAPACITY = 4;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 = one thread per available processor
+    @Value("${chat.auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${chat.auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    // Longest a request waits for its hash before giving up with 503
+    @Value("${chat.auth.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${chat.auth.hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private ThreadPoolExecutor rehashExecutor;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = newPool(poolSize, queueCapacity, "password-hasher-", Thread.NORM_PRIORITY);
+        rehashExecutor = newPool(1, REHASH_QUEUE_CAPACITY, "password-rehash-", Thread.MIN_PRIORITY);
+        rejected = meterRegistry.counter("chat.auth.hashing.rejected");
+        meterRegistry.gauge("chat.auth.hashing.queued", executor, pool -> pool.getQueue().size());
+        logger.info("Password hashing pool: {} threads, {} queued at most", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        rehashExecutor.shutdownNow();
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // Stored hash uses an outdated scheme or cost (cheap: no hashing involved)
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hash in the background; nobody waits for the result.
+     * Fails immediately when the rehash queue is full.
+     */
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), rehashExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Blocks the request thread only while its own hash is queued or running
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw overloaded("queue full");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw overloaded("timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw overloaded("interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(int size, int capacity, String namePrefix, int priority) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(priority);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ServiceUnavailableException overloaded(String reason) {
+        rejected.increment();
+        logger.warn("Password hashing rejected ({})", reason);
+        return new ServiceUnavailableException("Server is busy, please try again shortly", retryAfterSeconds);
+    }
+}
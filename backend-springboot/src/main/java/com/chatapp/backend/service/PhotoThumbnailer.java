@@ -0,0 +1,109 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.exception.ValidationException;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns an uploaded photo into square PNG thumbnails.
+ * - The upload is decoded once and center-cropped to a square
+ * - Sizes are produced largest first, each scaled from the previous one
+ * - Downscaling halves repeatedly (bilinear) to keep small avatars sharp
+ */
+@Component
+public class PhotoThumbnailer {
+
+    // Refuse to decode images larger than this (protects the heap from decompression bombs)
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    /**
+     * PNG bytes per edge length.
+     * Images smaller than a size are not upscaled; that variant keeps the cropped size.
+     */
+    public Map<Integer, byte[]> createThumbnails(byte[] photoBytes, List<Integer> sizes) {
+        BufferedImage current = cropToSquare(decode(photoBytes));
+
+        Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+        for (int i = sizes.size() - 1; i >= 0; i--) {
+            int size = sizes.get(i);
+            current = downscale(current, Math.min(size, current.getWidth()));
+            thumbnails.put(size, encodePng(current));
+        }
+        return thumbnails;
+    }
+
+    private BufferedImage decode(byte[] photoBytes) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(photoBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new ValidationException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new ValidationException("Image is too large");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new ValidationException("Unreadable image");
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+        return draw(image.getSubimage(x, y, side, side), side);
+    }
+
+    private static BufferedImage downscale(BufferedImage image, int target) {
+        BufferedImage current = image;
+        int side = current.getWidth();
+        while (side / 2 >= target) {
+            side /= 2;
+            current = draw(current, side);
+        }
+        return side == target ? current : draw(current, target);
+    }
+
+    // Redraw into a fresh ARGB image of the given edge length
+    private static BufferedImage draw(BufferedImage source, int side) {
+        BufferedImage target = new BufferedImage(side, side, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, side, side, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodePng(BufferedImage image) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("PNG encoding failed", e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.repository.ReadWatermarkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for read receipts.
+ * - Reads only record "reader has seen peer's messages up to id X" in memory
+ * - Repeated reads of the same conversation collapse into one entry (highest id wins)
+ * - A scheduled flush moves each conversation's read watermark (one-row upsert) and the
+ *   reader's inbox unread count, bounded by the same id (messages sent after the read stay unread)
+ * Metrics: chat.read_receipts.recorded / .flushed / .coalesced
+ */
+@Component
+public class ReadReceiptBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReceiptBuffer.class);
+
+    @Autowired
+    private ReadWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // (reader, peer) → highest message id from peer the reader has seen
+    private final Map<Conversation, Integer> pending = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Counter recorded;
+    private Counter flushed;
+    private Counter coalesced;
+
+    private record Conversation(String reader, String peer) {
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        recorded = meterRegistry.counter("chat.read_receipts.recorded");
+        flushed = meterRegistry.counter("chat.read_receipts.flushed");
+        coalesced = meterRegistry.counter("chat.read_receipts.coalesced");
+        meterRegistry.gauge("chat.read_receipts.pending", pending, Map::size);
+    }
+
+    // Remember that reader has seen peer's messages up to upToId
+    public void record(String reader, String peer, int upToId) {
+        recorded.increment();
+        Conversation conversation = new Conversation(reader, peer);
+        if (pending.putIfAbsent(conversation, upToId) != null) {
+            pending.merge(conversation, upToId, Math::max);
+            coalesced.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.read-receipts.flush-interval-ms:1000}")
+    public void flush() {
+        for (Conversation conversation : pending.keySet()) {
+            Integer upToId = pending.remove(conversation);
+            if (upToId == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    long readerId = userDirectory.requireId(conversation.reader());
+                    long peerId = userDirectory.requireId(conversation.peer());
+                    watermarkRepository.advance(readerId, peerId, upToId);
+                    inboxService.markRead(readerId, peerId, upToId);
+                });
+                flushed.increment();
+            } catch (Exception e) {
+                // Keep the receipt for the next flush
+                logger.warn("Failed to flush read receipt: {} ← {}", conversation.reader(), conversation.peer(), e);
+                pending.merge(conversation, upToId, Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,85 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.exception.ResourceNotFoundException;
+import com.chatapp.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps usernames to the surrogate user ids used as foreign keys, and back.
+ * - The API speaks usernames; messages, conversations, friendships and watermarks store ids
+ * - Ids never change and usernames cannot be renamed, so both directions are cached
+ *   (one small entry per user seen, like UserSearchIndex)
+ * - Unknown usernames are not cached, so a user who registers later is found
+ */
+@Service
+public class UserDirectory {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final Map<Long, String> usernamesById = new ConcurrentHashMap<>();
+
+    // Id of the user, if the account exists
+    public Optional<Long> findId(String username) {
+        Long cached = idsByUsername.get(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Long> id = userRepository.findIdByUsername(username);
+        id.ifPresent(found -> remember(found, username));
+        return id;
+    }
+
+    // Id of the user, or 404 if the account does not exist
+    public long requireId(String username) {
+        return findId(username).orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    }
+
+    // Username of an id read from a foreign key column
+    public String usernameOf(Long id) {
+        String cached = usernamesById.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        return usernamesOf(List.of(id)).get(id);
+    }
+
+    // Usernames of many ids, one query for those not cached yet
+    public Map<Long, String> usernamesOf(Collection<Long> ids) {
+        Map<Long, String> usernames = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            String cached = usernamesById.get(id);
+            if (cached != null) {
+                usernames.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (UserRepository.UserKey key : userRepository.findKeysByIds(missing)) {
+                remember(key.getId(), key.getUsername());
+                usernames.put(key.getId(), key.getUsername());
+            }
+        }
+        return usernames;
+    }
+
+    private void remember(Long id, String username) {
+        idsByUsername.put(username, id);
+        usernamesById.put(id, username);
+    }
+}
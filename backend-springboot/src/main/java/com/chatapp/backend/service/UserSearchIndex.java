@@ -0,0 +1,128 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory username index for search, so lookups never touch the database.
+ * - Prefix matches come from a sorted set (range scan)
+ * - Substring matches come from sorted n-gram postings (n = 1..3)
+ * Loaded at startup (usernames only) and updated on registration; reloaded every
+ * chat.users.search.refresh-interval-ms so users registered on another instance show up.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    // Longest n-gram indexed; longer terms are matched through their rarest trigram
+    private static final int MAX_GRAM = 3;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final NavigableSet<String> usernames = new ConcurrentSkipListSet<>();
+
+    // n-gram → usernames containing it
+    private final Map<String, Postings> grams = new ConcurrentHashMap<>();
+
+    // Sorted usernames plus a counter (ConcurrentSkipListSet.size() is a full traversal)
+    private static final class Postings {
+        private final NavigableSet<String> usernames = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(String username) {
+            if (usernames.add(username)) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        List<String> all = userRepository.findAllUsernames();
+        all.forEach(this::add);
+        logger.info("User search index loaded: {} users, {} n-grams", all.size(), grams.size());
+    }
+
+    // Picks up users registered on other instances (usernames are never renamed or removed, so adding is enough)
+    @Scheduled(fixedDelayString = "${chat.users.search.refresh-interval-ms:60000}",
+            initialDelayString = "${chat.users.search.refresh-interval-ms:60000}")
+    public void refresh() {
+        long added = userRepository.findAllUsernames().stream().filter(this::add).count();
+        logger.debug("User search index refreshed: {} new users", added);
+    }
+
+    // Returns false if the username was already indexed
+    public boolean add(String username) {
+        if (!usernames.add(username)) {
+            return false;
+        }
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= username.length(); i++) {
+                grams.computeIfAbsent(username.substring(i, i + n), key -> new Postings()).add(username);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Up to limit usernames containing term (case-sensitive).
+     * Prefix matches first, then other matches, each in alphabetical order.
+     */
+    public List<String> search(String term, int limit) {
+        Set<String> result = new LinkedHashSet<>();
+
+        for (String username : usernames.tailSet(term, true)) {
+            if (result.size() == limit || !username.startsWith(term)) {
+                break;
+            }
+            result.add(username);
+        }
+
+        for (String username : candidates(term)) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (username.contains(term)) {
+                result.add(username);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    // Usernames that may contain term: the posting list of its rarest gram
+    private Set<String> candidates(String term) {
+        if (term.length() <= MAX_GRAM) {
+            Postings postings = grams.get(term);
+            return postings != null ? postings.usernames : Collections.emptySet();
+        }
+        Postings rarest = null;
+        for (int i = 0; i + MAX_GRAM <= term.length(); i++) {
+            Postings postings = grams.get(term.substring(i, i + MAX_GRAM));
+            if (postings == null) {
+                return Collections.emptySet();
+            }
+            if (rarest == null || postings.size.get() < rarest.size.get()) {
+                rarest = postings;
+            }
+        }
+        return rarest.usernames;
+    }
+}
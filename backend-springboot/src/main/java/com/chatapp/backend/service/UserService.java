@@ -1,30 +1,77 @@
 package com.chatapp.backend.service;
 
 import com.chatapp.backend.dto.response.ApiResponse;
-import com.chatapp.backend.exception.ResourceNotFoundException;
+import com.chatapp.backend.dto.response.PhotoBatchEntry;
+import com.chatapp.backend.dto.response.PhotoResponse;
 import com.chatapp.backend.exception.ValidationException;
-import com.chatapp.backend.model.User;
+import com.chatapp.backend.model.UserPhoto;
+import com.chatapp.backend.model.UserPhotoVariant;
+import com.chatapp.backend.repository.UserPhotoRepository;
+import com.chatapp.backend.repository.UserPhotoVariantRepository;
 import com.chatapp.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages user-related operations.
  * Handles user search and profile photo management.
+ * Search is served from the in-memory UserSearchIndex.
+ * Photos live in their own table (UserPhoto) and are only read by the photo endpoints.
+ * Uploads also produce square thumbnails (UserPhotoVariant), served by size.
  */
 @Service
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
+    // Search returns at most this many usernames
+    private static final int MAX_SEARCH_RESULTS = 20;
+
+    // ETag of the empty body returned for users without a photo
+    private static final String NO_PHOTO_ETAG = "\"none\"";
+
+    // Most photos one batch request may ask for
+    private static final int MAX_PHOTO_BATCH = 200;
+
+    // Photos converted per thumbnail backfill transaction
+    private static final int THUMBNAIL_BACKFILL_BATCH = 20;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserPhotoRepository userPhotoRepository;
+
+    @Autowired
+    private UserPhotoVariantRepository variantRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private PhotoThumbnailer photoThumbnailer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public ApiResponse<List<String>> searchUsers(String username) {
         if (username == null || username.isBlank()) {
             throw new ValidationException("Search term is required");
@@ -32,39 +79,127 @@ public class UserService {
 
         logger.info("Searching users with term: {}", username);
 
-        List<User> allUsers = userRepository.findAll();
-        List<String> matchingUsers = new ArrayList<>();
+        List<String> matchingUsers = userSearchIndex.search(username, MAX_SEARCH_RESULTS);
+
+        logger.info("Found {} users matching '{}'", matchingUsers.size(), username);
+        return ApiResponse.success("Users found", matchingUsers);
+    }
 
-        for (User user : allUsers) {
-            if (user.getUsername().contains(username)) {
-                matchingUsers.add(user.getUsername());
+    /**
+     * Photo with its validators.
+     * size picks the smallest thumbnail that covers it; null or larger than every thumbnail
+     * returns the original. Photos without thumbnails yet fall back to the original.
+     */
+    public ApiResponse<PhotoResponse> getProfilePhoto(String username, Integer size) {
+        logger.debug("Fetching photo for user: {} (size {})", username, size);
+
+        Integer variantSize = resolveVariantSize(size);
+        long userId = userDirectory.requireId(username);
+        if (variantSize != null) {
+            var variant = variantRepository.findByUserIdAndSize(userId, variantSize);
+            if (variant.isPresent()) {
+                UserPhotoVariant v = variant.get();
+                return ApiResponse.success("Photo retrieved",
+                        new PhotoResponse(etag(v.getContentHash()), v.getUpdatedAt(), v.getData()));
             }
         }
 
-        if (matchingUsers.size() > 20) {
-            matchingUsers = matchingUsers.subList(0, 20);
+        var photo = userPhotoRepository.findById(userId);
+
+        if (photo.isPresent()) {
+            UserPhoto p = photo.get();
+            return ApiResponse.success("Photo retrieved",
+                    new PhotoResponse(etag(p.getContentHash()), p.getUpdatedAt(), p.getData()));
         }
 
-        logger.info("Found {} users matching '{}'", matchingUsers.size(), username);
-        return ApiResponse.success("Users found", matchingUsers);
+        return ApiResponse.success("No photo", new PhotoResponse(NO_PHOTO_ETAG, null, new byte[0]));
     }
 
-    public ApiResponse<byte[]> getProfilePhoto(String username) {
-        logger.debug("Fetching photo for user: {}", username);
+    // Validators only (data is null), for answering If-None-Match without loading the image
+    public ApiResponse<PhotoResponse> getProfilePhotoVersion(String username, Integer size) {
+        Integer variantSize = resolveVariantSize(size);
+        long userId = userDirectory.requireId(username);
+        var version = variantSize != null
+                ? variantRepository.findVersionByUserIdAndSize(userId, variantSize)
+                        .or(() -> userPhotoRepository.findVersionByUserId(userId))
+                : userPhotoRepository.findVersionByUserId(userId);
 
-        var user = userRepository.findById(username);
+        if (version.isPresent()) {
+            return ApiResponse.success("Photo version",
+                    new PhotoResponse(etag(version.get().getContentHash()), version.get().getUpdatedAt(), null));
+        }
 
-        if (user.isEmpty()) {
-            throw new ResourceNotFoundException("User not found");
+        return ApiResponse.success("No photo", new PhotoResponse(NO_PHOTO_ETAG, null, null));
+    }
+
+    /**
+     * Photos of several users in one call, same size rules as getProfilePhoto.
+     * knownEtags maps each username to the ETag the client already has (or null).
+     * Only photos whose ETag differs are returned; unknown users are left out.
+     * Validators are compared first, image bytes are loaded only for changed photos.
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<List<PhotoBatchEntry>> getProfilePhotos(Map<String, String> knownEtags, Integer size) {
+        if (knownEtags == null || knownEtags.isEmpty()) {
+            throw new ValidationException("At least one username is required");
+        }
+        if (knownEtags.size() > MAX_PHOTO_BATCH) {
+            throw new ValidationException("At most " + MAX_PHOTO_BATCH + " photos per request");
         }
 
-        if (user.get().getPhoto() != null) {
-            return ApiResponse.success("Photo retrieved", user.get().getPhoto());
-        } else {
-            return ApiResponse.success("No photo", new byte[0]);
+        Integer variantSize = resolveVariantSize(size);
+
+        // Current ETag per user: thumbnail first, then original, then "no photo";
+        // the photo owners by id, to load changed images by key
+        Map<String, String> current = new HashMap<>();
+        Map<Long, String> variantUsers = new HashMap<>();
+        Map<Long, String> originalUsers = new HashMap<>();
+
+        if (variantSize != null) {
+            for (var version : variantRepository.findVersionsByUsernameInAndSize(knownEtags.keySet(), variantSize)) {
+                current.put(version.getUsername(), etag(version.getContentHash()));
+                variantUsers.put(version.getUserId(), version.getUsername());
+            }
+        }
+        Set<String> remaining = missingFrom(knownEtags.keySet(), current);
+        if (!remaining.isEmpty()) {
+            for (var version : userPhotoRepository.findVersionsByUsernameIn(remaining)) {
+                current.put(version.getUsername(), etag(version.getContentHash()));
+                originalUsers.put(version.getUserId(), version.getUsername());
+            }
+            remaining = missingFrom(remaining, current);
+        }
+        if (!remaining.isEmpty()) {
+            userRepository.findExistingUsernames(remaining)
+                    .forEach(username -> current.put(username, NO_PHOTO_ETAG));
         }
+
+        current.entrySet().removeIf(entry -> entry.getValue().equals(knownEtags.get(entry.getKey())));
+        variantUsers.values().retainAll(current.keySet());
+        originalUsers.values().retainAll(current.keySet());
+
+        List<PhotoBatchEntry> changed = new ArrayList<>();
+        if (!variantUsers.isEmpty()) {
+            for (UserPhotoVariant v : variantRepository.findByUserIdInAndSize(variantUsers.keySet(), variantSize)) {
+                changed.add(new PhotoBatchEntry(variantUsers.get(v.getUserId()), etag(v.getContentHash()), v.getData()));
+            }
+        }
+        if (!originalUsers.isEmpty()) {
+            for (UserPhoto p : userPhotoRepository.findAllById(originalUsers.keySet())) {
+                changed.add(new PhotoBatchEntry(originalUsers.get(p.getUserId()), etag(p.getContentHash()), p.getData()));
+            }
+        }
+        current.forEach((username, etag) -> {
+            if (etag.equals(NO_PHOTO_ETAG)) {
+                changed.add(new PhotoBatchEntry(username, NO_PHOTO_ETAG, new byte[0]));
+            }
+        });
+
+        logger.debug("Photo batch: {} requested, {} changed", knownEtags.size(), changed.size());
+        return ApiResponse.success("Photos retrieved", changed);
     }
 
+    // Decodes and scales outside the transaction; only the writes run inside it
     public ApiResponse<String> updateProfilePhoto(String username, byte[] photoBytes) {
         logger.info("Updating photo for user: {}", username);
 
@@ -72,16 +207,21 @@ public class UserService {
             throw new ValidationException("Photo data is required");
         }
 
-        try {
-            var user = userRepository.findById(username);
+        long userId = userDirectory.requireId(username);
 
-            if (user.isEmpty()) {
-                throw new ResourceNotFoundException("User not found");
-            }
+        Map<Integer, byte[]> thumbnails = photoThumbnailer.createThumbnails(photoBytes, UserPhotoVariant.SIZES);
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                var existing = userPhotoRepository.findById(userId);
 
-            User existingUser = user.get();
-            existingUser.setPhoto(photoBytes);
-            userRepository.save(existingUser);
+                if (existing.isPresent()) {
+                    existing.get().setData(photoBytes);
+                } else {
+                    userPhotoRepository.save(new UserPhoto(userId, photoBytes));
+                }
+                saveVariants(userId, thumbnails);
+            });
 
             logger.info("Photo updated successfully for user: {}", username);
             return ApiResponse.success("Photo updated successfully", null);
@@ -90,4 +230,78 @@ public class UserService {
             throw new RuntimeException("Failed to update photo");
         }
     }
-}
\ No newline at end of file
+
+    // Photos uploaded before thumbnails existed get them after startup, without holding up readiness
+    @EventListener(ApplicationReadyEvent.class)
+    public void startThumbnailBackfill() {
+        Thread backfill = new Thread(this::createMissingThumbnails, "thumbnail-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * Creates missing thumbnails, one transaction per batch, until none are left.
+     * Each batch locks its photos, so instances starting together split the work instead of
+     * repeating it. Originals that cannot be decoded are marked and not retried.
+     */
+    public void createMissingThumbnails() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int processed = 0;
+        try {
+            int batch;
+            do {
+                batch = transactionTemplate.execute(status -> createThumbnailBatch());
+                processed += batch;
+            } while (batch > 0);
+        } catch (Exception e) {
+            logger.error("Thumbnail backfill stopped after {} photos", processed, e);
+            return;
+        }
+        if (processed > 0) {
+            logger.info("Thumbnail backfill done: {} photos", processed);
+        }
+    }
+
+    // One batch in the caller's transaction; returns how many photos it took
+    private int createThumbnailBatch() {
+        List<UserPhoto> photos = userPhotoRepository.lockWithoutVariants(Limit.of(THUMBNAIL_BACKFILL_BATCH));
+        for (UserPhoto photo : photos) {
+            Map<Integer, byte[]> thumbnails;
+            try {
+                thumbnails = photoThumbnailer.createThumbnails(photo.getData(), UserPhotoVariant.SIZES);
+            } catch (RuntimeException e) {
+                // Unreadable originals keep being served as they are
+                logger.warn("Could not create thumbnails for user id {}: {}", photo.getUserId(), e.getMessage());
+                photo.markThumbnailsFailed();
+                continue;
+            }
+            saveVariants(photo.getUserId(), thumbnails);
+        }
+        return photos.size();
+    }
+
+    private void saveVariants(Long userId, Map<Integer, byte[]> thumbnails) {
+        variantRepository.deleteByUserId(userId);
+        List<UserPhotoVariant> variants = new ArrayList<>();
+        thumbnails.forEach((size, data) -> variants.add(new UserPhotoVariant(userId, size, data)));
+        variantRepository.saveAll(variants);
+    }
+
+    private static Integer resolveVariantSize(Integer size) {
+        if (size != null && size < 1) {
+            throw new ValidationException("Size must be positive");
+        }
+        return UserPhotoVariant.sizeFor(size);
+    }
+
+    private static Set<String> missingFrom(Set<String> usernames, Map<String, String> found) {
+        Set<String> missing = new HashSet<>(usernames);
+        missing.removeAll(found.keySet());
+        return missing;
+    }
+
+    // Strong ETag from the content hash
+    private static String etag(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+}
@@ -0,0 +1,119 @@
+package com.chatapp.backend.websocket;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket endpoint that pushes new messages to their receiver.
+ * - Handshake is authenticated by JwtAuthenticationFilter (Authorization: Bearer header)
+ * - A user may have several open sessions (one per client window)
+ * - Server → client only, incoming frames are ignored
+ * - Sessions live on the instance the client connected to; with chat.push.relay.enabled
+ *   every send is fanned out to all instances through PgPushRelay, which delivers here
+ * Clients sync with sinceId on every (re)connect, so nothing sent while they were offline is lost.
+ */
+@Component
+public class MessagePushHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePushHandler.class);
+
+    // Limits for slow clients before the session is dropped
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 64 * 1024;
+
+    private final Map<String, Set<WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // When set, PgPushRelay delivers every message (including this instance's) after commit
+    @Value("${chat.push.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        String username = usernameOf(session);
+        if (username == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES);
+        session.getAttributes().put(WebSocketSession.class.getName(), concurrentSession);
+        sessionsByUser.computeIfAbsent(username, key -> ConcurrentHashMap.newKeySet()).add(concurrentSession);
+
+        logger.info("Push session opened for user: {}", username);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        String username = usernameOf(session);
+        Object concurrentSession = session.getAttributes().get(WebSocketSession.class.getName());
+        if (username == null || concurrentSession == null) {
+            return;
+        }
+
+        sessionsByUser.computeIfPresent(username, (key, sessions) -> {
+            sessions.remove(concurrentSession);
+            return sessions.isEmpty() ? null : sessions;
+        });
+
+        logger.info("Push session closed for user: {} ({})", username, status.getCode());
+    }
+
+    // Runs after the sending transaction commits, so clients never see uncommitted messages
+    @TransactionalEventListener
+    public void onMessageSent(MessageSentEvent event) {
+        if (!relayEnabled) {
+            push(event.receiver(), event.message());
+        }
+    }
+
+    // Whether the user has an open session on this instance
+    public boolean isConnected(String username) {
+        Set<WebSocketSession> sessions = sessionsByUser.get(username);
+        return sessions != null && !sessions.isEmpty();
+    }
+
+    // Send a committed message to the receiver's sessions on this instance
+    public void push(String receiver, MessageResponse message) {
+        Set<WebSocketSession> sessions = sessionsByUser.get(receiver);
+        if (sessions == null || sessions.isEmpty()) {
+            return;
+        }
+
+        TextMessage frame = new TextMessage(jsonMapper.writeValueAsString(message));
+        for (WebSocketSession session : sessions) {
+            try {
+                session.sendMessage(frame);
+            } catch (IOException | IllegalStateException e) {
+                logger.warn("Failed to push message to {}: {}", receiver, e.getMessage());
+            }
+        }
+
+        logger.debug("Pushed message {} to {} session(s) of {}", message.id(), sessions.size(), receiver);
+    }
+
+    private String usernameOf(WebSocketSession session) {
+        Principal principal = session.getPrincipal();
+        return principal != null ? principal.getName() : null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.chatapp.backend.websocket;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+
+/**
+ * Published by MessageService when a message is stored.
+ * Delivered to the receiver's WebSocket sessions once the transaction commits.
+ */
+public record MessageSentEvent(String receiver, MessageResponse message) {}
@@ -0,0 +1,203 @@
+package com.chatapp.backend.websocket;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.model.Message;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.service.UserDirectory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans message pushes out to every instance through PostgreSQL LISTEN/NOTIFY.
+ * - The sending transaction queues one NOTIFY with its messages (receiver + id, not the content:
+ *   payloads are limited to 8000 bytes); PostgreSQL delivers it to all listeners on commit only
+ * - Each instance listens on one dedicated pooled connection and pushes to the receivers
+ *   connected to it, loading just those messages (one query per notification)
+ * - Notifications sent while an instance's listener reconnects are missed; clients catch up with
+ *   sinceId when their socket reconnects
+ * Enabled with chat.push.relay.enabled (PostgreSQL only); otherwise MessagePushHandler delivers locally.
+ */
+@Component
+public class PgPushRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(PgPushRelay.class);
+
+    private static final String CHANNEL = "chat_push";
+
+    // Notices per NOTIFY; usernames are at most 25 characters, so a payload stays well below 8000 bytes
+    private static final int NOTICES_PER_PAYLOAD = 100;
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private MessagePushHandler pushHandler;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Value("${chat.push.relay.enabled:false}")
+    private boolean enabled;
+
+    private Thread listener;
+    private volatile boolean running;
+
+    // A committed message and who it is for
+    record PushNotice(String receiver, Integer id) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "push-relay");
+        listener.setDaemon(true);
+        listener.start();
+        logger.info("Push relay enabled (LISTEN {})", CHANNEL);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (listener == null) {
+            return;
+        }
+        running = false;
+        listener.interrupt();
+        try {
+            listener.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs inside the sending transaction; the notices are sent just before it commits
+    @EventListener
+    public void onMessageSent(MessageSentEvent event) {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<PushNotice> pending = (List<PushNotice>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<PushNotice> notices = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, notices);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    sendNotify(notices);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PgPushRelay.this);
+                }
+            });
+            pending = notices;
+        }
+        pending.add(new PushNotice(event.receiver(), event.message().id()));
+    }
+
+    private void sendNotify(List<PushNotice> notices) {
+        for (int from = 0; from < notices.size(); from += NOTICES_PER_PAYLOAD) {
+            List<PushNotice> chunk = notices.subList(from, Math.min(from + NOTICES_PER_PAYLOAD, notices.size()));
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, jsonMapper.writeValueAsString(chunk));
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Push relay listening");
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Push relay connection lost, reconnecting in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Push the notified messages whose receivers are connected to this instance
+    void deliver(String payload) {
+        try {
+            Map<Integer, String> receivers = new HashMap<>();
+            for (PushNotice notice : jsonMapper.readValue(payload, new TypeReference<List<PushNotice>>() { })) {
+                if (pushHandler.isConnected(notice.receiver())) {
+                    receivers.put(notice.id(), notice.receiver());
+                }
+            }
+            if (receivers.isEmpty()) {
+                return;
+            }
+
+            List<Message> messages = new ArrayList<>(messageRepository.findAllById(receivers.keySet()));
+            messages.sort(Comparator.comparing(Message::getId));
+            for (Message msg : messages) {
+                String sender = userDirectory.usernameOf(msg.getSenderId());
+                pushHandler.push(receivers.get(msg.getId()), new MessageResponse(msg.getId(), sender, msg.getContent()));
+            }
+        } catch (JacksonException e) {
+            logger.warn("Ignoring malformed push notification: {}", payload);
+        } catch (RuntimeException e) {
+            logger.error("Failed to deliver push notification: {}", payload, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- One conversation per pair of users (canonical order user1 <= user2, code point order like the app).
+-- Messages reference it, so a chat's history is one contiguous range of (conversation_id, id).
+
+CREATE TABLE conversations (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user1 VARCHAR(50) NOT NULL,
+    user2 VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT uk_conversation_pair UNIQUE (user1, user2)
+);
+
+INSERT INTO conversations (user1, user2, created_at)
+SELECT pair.user1, pair.user2, MIN(pair.created_at)
+FROM (SELECT CASE WHEN sender COLLATE "C" <= receiver COLLATE "C" THEN sender ELSE receiver END AS user1,
+             CASE WHEN sender COLLATE "C" <= receiver COLLATE "C" THEN receiver ELSE sender END AS user2,
+             created_at
+      FROM messages) pair
+GROUP BY pair.user1, pair.user2;
+
+ALTER TABLE messages ADD COLUMN conversation_id INTEGER;
+
+UPDATE messages m SET conversation_id = c.id
+FROM conversations c
+WHERE (c.user1 = m.sender AND c.user2 = m.receiver)
+   OR (c.user1 = m.receiver AND c.user2 = m.sender);
+
+ALTER TABLE messages ALTER COLUMN conversation_id SET NOT NULL;
+ALTER TABLE messages ADD CONSTRAINT fk_messages_conversation FOREIGN KEY (conversation_id) REFERENCES conversations (id);
+
+CREATE INDEX idx_messages_conversation_id ON messages (conversation_id, id);
@@ -0,0 +1,86 @@
+-- Surrogate BIGINT user ids replace usernames as keys of messages, conversations, friendships and read_watermarks
+-- (user_photos, user_photo_variants and conversation_summaries follow in V14).
+-- The username stays unique.
+
+-- Rows naming a user without an account (deleted, or longer than a username) are dropped below:
+-- no one can log in to read them, and a placeholder account would block the name and show up in search.
+
+-- users: id becomes the primary key, username a unique key (CASCADE drops the photo tables' foreign keys)
+ALTER TABLE users ADD COLUMN id BIGINT GENERATED BY DEFAULT AS IDENTITY;
+ALTER TABLE users DROP CONSTRAINT users_pkey CASCADE;
+ALTER TABLE users ADD CONSTRAINT users_pkey PRIMARY KEY (id);
+ALTER TABLE users ALTER COLUMN username SET NOT NULL;
+ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username);
+
+ALTER TABLE user_photos ADD CONSTRAINT fk_user_photos_user
+    FOREIGN KEY (username) REFERENCES users (username) ON DELETE CASCADE;
+ALTER TABLE user_photo_variants ADD CONSTRAINT fk_user_photo_variants_user
+    FOREIGN KEY (username) REFERENCES users (username) ON DELETE CASCADE;
+
+-- messages
+ALTER TABLE messages ADD COLUMN sender_id BIGINT, ADD COLUMN receiver_id BIGINT;
+
+UPDATE messages m SET sender_id = s.id, receiver_id = r.id
+FROM users s, users r
+WHERE s.username = m.sender AND r.username = m.receiver;
+
+DELETE FROM messages WHERE sender_id IS NULL OR receiver_id IS NULL;
+
+-- Drops idx_messages_receiver_sender_id with the columns
+ALTER TABLE messages DROP COLUMN sender, DROP COLUMN receiver;
+ALTER TABLE messages ALTER COLUMN sender_id SET NOT NULL, ALTER COLUMN receiver_id SET NOT NULL;
+ALTER TABLE messages ADD CONSTRAINT fk_messages_sender FOREIGN KEY (sender_id) REFERENCES users (id);
+ALTER TABLE messages ADD CONSTRAINT fk_messages_receiver FOREIGN KEY (receiver_id) REFERENCES users (id);
+
+CREATE INDEX idx_messages_receiver_sender_id ON messages (receiver_id, sender_id, id);
+
+-- conversations: canonical order is now by id (user1_id <= user2_id)
+ALTER TABLE conversations ADD COLUMN user1_id BIGINT, ADD COLUMN user2_id BIGINT;
+
+UPDATE conversations c SET user1_id = LEAST(a.id, b.id), user2_id = GREATEST(a.id, b.id)
+FROM users a, users b
+WHERE a.username = c.user1 AND b.username = c.user2;
+
+DELETE FROM conversations WHERE user1_id IS NULL OR user2_id IS NULL;
+
+ALTER TABLE conversations DROP COLUMN user1, DROP COLUMN user2;
+ALTER TABLE conversations ALTER COLUMN user1_id SET NOT NULL, ALTER COLUMN user2_id SET NOT NULL;
+ALTER TABLE conversations ADD CONSTRAINT uk_conversation_pair UNIQUE (user1_id, user2_id);
+ALTER TABLE conversations ADD CONSTRAINT fk_conversations_user1 FOREIGN KEY (user1_id) REFERENCES users (id);
+ALTER TABLE conversations ADD CONSTRAINT fk_conversations_user2 FOREIGN KEY (user2_id) REFERENCES users (id);
+
+-- friendships: canonical order is now by id (user1_id < user2_id)
+ALTER TABLE friendships ADD COLUMN user1_id BIGINT, ADD COLUMN user2_id BIGINT, ADD COLUMN initiated_by_id BIGINT;
+
+UPDATE friendships f SET user1_id = LEAST(a.id, b.id), user2_id = GREATEST(a.id, b.id), initiated_by_id = i.id
+FROM users a, users b, users i
+WHERE a.username = f.user1 AND b.username = f.user2 AND i.username = f.initiated_by;
+
+DELETE FROM friendships WHERE user1_id IS NULL OR user2_id IS NULL OR initiated_by_id IS NULL;
+
+-- Drops uk_friendship_pair and the partial indexes with the columns
+ALTER TABLE friendships DROP COLUMN user1, DROP COLUMN user2, DROP COLUMN initiated_by;
+ALTER TABLE friendships ALTER COLUMN user1_id SET NOT NULL, ALTER COLUMN user2_id SET NOT NULL,
+    ALTER COLUMN initiated_by_id SET NOT NULL;
+ALTER TABLE friendships ADD CONSTRAINT uk_friendship_pair UNIQUE (user1_id, user2_id);
+ALTER TABLE friendships ADD CONSTRAINT fk_friendships_user1 FOREIGN KEY (user1_id) REFERENCES users (id);
+ALTER TABLE friendships ADD CONSTRAINT fk_friendships_user2 FOREIGN KEY (user2_id) REFERENCES users (id);
+ALTER TABLE friendships ADD CONSTRAINT fk_friendships_initiated_by FOREIGN KEY (initiated_by_id) REFERENCES users (id);
+
+CREATE INDEX idx_friendships_user1_active ON friendships (user1_id) WHERE status <> 'REJECTED';
+CREATE INDEX idx_friendships_user2_active ON friendships (user2_id) WHERE status <> 'REJECTED';
+
+-- read_watermarks
+ALTER TABLE read_watermarks ADD COLUMN reader_id BIGINT, ADD COLUMN peer_id BIGINT;
+
+UPDATE read_watermarks w SET reader_id = r.id, peer_id = p.id
+FROM users r, users p
+WHERE r.username = w.reader AND p.username = w.peer;
+
+DELETE FROM read_watermarks WHERE reader_id IS NULL OR peer_id IS NULL;
+
+ALTER TABLE read_watermarks DROP COLUMN reader, DROP COLUMN peer;
+ALTER TABLE read_watermarks ALTER COLUMN reader_id SET NOT NULL, ALTER COLUMN peer_id SET NOT NULL;
+ALTER TABLE read_watermarks ADD CONSTRAINT uk_watermark_reader_peer UNIQUE (reader_id, peer_id);
+ALTER TABLE read_watermarks ADD CONSTRAINT fk_read_watermarks_reader FOREIGN KEY (reader_id) REFERENCES users (id);
+ALTER TABLE read_watermarks ADD CONSTRAINT fk_read_watermarks_peer FOREIGN KEY (peer_id) REFERENCES users (id);
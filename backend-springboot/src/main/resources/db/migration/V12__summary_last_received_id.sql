@@ -0,0 +1,10 @@
+-- Newest message the owner received from the peer. Marking read zeroes unread_count only when
+-- nothing newer than the read message arrived; otherwise the count is recomputed.
+ALTER TABLE conversation_summaries ADD COLUMN last_received_id INTEGER;
+
+UPDATE conversation_summaries s SET last_received_id = (
+    SELECT MAX(m.id)
+    FROM messages m
+    JOIN users o ON o.id = m.receiver_id
+    JOIN users p ON p.id = m.sender_id
+    WHERE o.username = s.owner AND p.username = s.peer);
@@ -0,0 +1,3 @@
+-- Originals the thumbnail backfill could not decode; they are skipped instead of retried on every start.
+-- Cleared when the user uploads a new photo.
+ALTER TABLE user_photos ADD COLUMN thumbnails_failed_at TIMESTAMP(6);
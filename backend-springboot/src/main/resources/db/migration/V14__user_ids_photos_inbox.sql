@@ -0,0 +1,42 @@
+-- Completes V11: the inbox and photo tables reference users by id as well, with foreign keys.
+
+-- conversation_summaries: rows naming a user without an account are dropped
+ALTER TABLE conversation_summaries ADD COLUMN owner_id BIGINT, ADD COLUMN peer_id BIGINT;
+
+UPDATE conversation_summaries s SET owner_id = o.id, peer_id = p.id
+FROM users o, users p
+WHERE o.username = s.owner AND p.username = s.peer;
+
+DELETE FROM conversation_summaries WHERE owner_id IS NULL OR peer_id IS NULL;
+
+-- Drops uk_summary_owner_peer and idx_summary_owner_activity with the columns
+ALTER TABLE conversation_summaries DROP COLUMN owner, DROP COLUMN peer;
+ALTER TABLE conversation_summaries ALTER COLUMN owner_id SET NOT NULL, ALTER COLUMN peer_id SET NOT NULL;
+ALTER TABLE conversation_summaries ADD CONSTRAINT uk_summary_owner_peer UNIQUE (owner_id, peer_id);
+ALTER TABLE conversation_summaries ADD CONSTRAINT fk_summaries_owner FOREIGN KEY (owner_id) REFERENCES users (id);
+ALTER TABLE conversation_summaries ADD CONSTRAINT fk_summaries_peer FOREIGN KEY (peer_id) REFERENCES users (id);
+
+CREATE INDEX idx_summary_owner_activity ON conversation_summaries (owner_id, last_message_at);
+
+-- user_photos: the user id becomes the primary key (every username has an account, see V11)
+ALTER TABLE user_photos ADD COLUMN user_id BIGINT;
+
+UPDATE user_photos p SET user_id = u.id FROM users u WHERE u.username = p.username;
+
+-- Drops the primary key and fk_user_photos_user with the column
+ALTER TABLE user_photos DROP COLUMN username;
+ALTER TABLE user_photos ADD CONSTRAINT user_photos_pkey PRIMARY KEY (user_id);
+ALTER TABLE user_photos ADD CONSTRAINT fk_user_photos_user
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+
+-- user_photo_variants
+ALTER TABLE user_photo_variants ADD COLUMN user_id BIGINT;
+
+UPDATE user_photo_variants v SET user_id = u.id FROM users u WHERE u.username = v.username;
+
+-- Drops uk_variant_username_size and fk_user_photo_variants_user with the column
+ALTER TABLE user_photo_variants DROP COLUMN username;
+ALTER TABLE user_photo_variants ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE user_photo_variants ADD CONSTRAINT uk_variant_user_size UNIQUE (user_id, size_px);
+ALTER TABLE user_photo_variants ADD CONSTRAINT fk_user_photo_variants_user
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
@@ -0,0 +1,29 @@
+-- Schema as it was before versioned migrations were introduced.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE users (
+    username VARCHAR(25) PRIMARY KEY,
+    password VARCHAR(255),
+    photo BYTEA,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE friendships (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user1 VARCHAR(50) NOT NULL,
+    user2 VARCHAR(50) NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('PENDING', 'ACCEPTED', 'REJECTED')),
+    initiated_by VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE messages (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sender VARCHAR(50) NOT NULL,
+    receiver VARCHAR(50) NOT NULL,
+    content TEXT NOT NULL,
+    is_read BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6)
+);
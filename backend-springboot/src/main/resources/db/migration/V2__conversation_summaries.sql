@@ -0,0 +1,33 @@
+-- Materialized inbox: one row per (owner, peer)
+
+CREATE TABLE conversation_summaries (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    owner VARCHAR(50) NOT NULL,
+    peer VARCHAR(50) NOT NULL,
+    last_message VARCHAR(100),
+    last_message_at TIMESTAMP(6) NOT NULL,
+    unread_count INTEGER NOT NULL,
+    CONSTRAINT uk_summary_owner_peer UNIQUE (owner, peer)
+);
+
+CREATE INDEX idx_summary_owner_activity ON conversation_summaries (owner, last_message_at);
+
+-- Both sides of every conversation that has messages: latest message and unread count
+INSERT INTO conversation_summaries (owner, peer, last_message, last_message_at, unread_count)
+SELECT DISTINCT ON (c.owner, c.peer)
+       c.owner, c.peer, LEFT(c.content, 100), COALESCE(c.created_at, CURRENT_TIMESTAMP),
+       (SELECT COUNT(*) FROM messages u
+        WHERE u.receiver = c.owner AND u.sender = c.peer AND u.is_read = FALSE)
+FROM (SELECT sender AS owner, receiver AS peer, id, content, created_at FROM messages
+      UNION ALL
+      SELECT receiver, sender, id, content, created_at FROM messages) c
+ORDER BY c.owner, c.peer, c.id DESC;
+
+-- Friends who never exchanged a message
+INSERT INTO conversation_summaries (owner, peer, last_message, last_message_at, unread_count)
+SELECT f.user1, f.user2, NULL, COALESCE(f.updated_at, CURRENT_TIMESTAMP), 0
+FROM friendships f WHERE f.status = 'ACCEPTED'
+UNION
+SELECT f.user2, f.user1, NULL, COALESCE(f.updated_at, CURRENT_TIMESTAMP), 0
+FROM friendships f WHERE f.status = 'ACCEPTED'
+ON CONFLICT (owner, peer) DO NOTHING;
@@ -0,0 +1,10 @@
+-- Message ids come from a standalone sequence, so inserts can be JDBC-batched (IDENTITY ids cannot be).
+-- One value per message, no block allocation: MessageWriter draws them after locking the conversation,
+-- so within a conversation ids increase in commit order (sinceId sync, page cursors and read
+-- watermarks rely on it).
+ALTER TABLE messages ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE messages_id_seq;
+
+-- Continue above the existing ids
+SELECT setval('messages_id_seq', COALESCE(MAX(id), 0) + 1, false) FROM messages;
@@ -0,0 +1,21 @@
+-- Per-conversation read watermark replaces the per-row is_read flag
+
+CREATE TABLE read_watermarks (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    reader VARCHAR(50) NOT NULL,
+    peer VARCHAR(50) NOT NULL,
+    last_read_message_id INTEGER NOT NULL,
+    CONSTRAINT uk_watermark_reader_peer UNIQUE (reader, peer)
+);
+
+-- Everything before the oldest unread message counts as read;
+-- conversations without unread messages are read up to their newest message
+INSERT INTO read_watermarks (reader, peer, last_read_message_id)
+SELECT receiver, sender, COALESCE(MIN(CASE WHEN is_read = FALSE THEN id END) - 1, MAX(id))
+FROM messages
+GROUP BY receiver, sender;
+
+-- Unread counts: count(id > watermark) per (receiver, sender)
+CREATE INDEX idx_messages_receiver_sender_id ON messages (receiver, sender, id);
+
+ALTER TABLE messages DROP COLUMN is_read;
@@ -0,0 +1,14 @@
+-- Profile photos move out of the users row so loading a user never reads image bytes
+
+CREATE TABLE user_photos (
+    username VARCHAR(25) PRIMARY KEY REFERENCES users (username) ON DELETE CASCADE,
+    data BYTEA NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+INSERT INTO user_photos (username, data, updated_at)
+SELECT username, photo, COALESCE(updated_at, CURRENT_TIMESTAMP)
+FROM users
+WHERE photo IS NOT NULL AND LENGTH(photo) > 0;
+
+ALTER TABLE users DROP COLUMN photo;
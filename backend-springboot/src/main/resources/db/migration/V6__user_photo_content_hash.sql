@@ -0,0 +1,6 @@
+-- Content hash of each photo, served as its ETag
+ALTER TABLE user_photos ADD COLUMN content_hash VARCHAR(64);
+
+UPDATE user_photos SET content_hash = encode(sha256(data), 'hex');
+
+ALTER TABLE user_photos ALTER COLUMN content_hash SET NOT NULL;
@@ -0,0 +1,11 @@
+-- Square PNG thumbnails per user and size; existing photos are converted by the app after startup
+
+CREATE TABLE user_photo_variants (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(25) NOT NULL REFERENCES users (username) ON DELETE CASCADE,
+    size_px INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_variant_username_size UNIQUE (username, size_px)
+);
@@ -0,0 +1,22 @@
+-- One row per pair of users, stored in canonical order (user1 < user2)
+-- COLLATE "C" compares code points, like String.compareTo in the app
+
+UPDATE friendships SET user1 = user2, user2 = user1
+WHERE user1 COLLATE "C" > user2 COLLATE "C";
+
+DELETE FROM friendships WHERE user1 = user2;
+
+-- Pairs stored twice (both orders): keep accepted over pending over rejected, then the newest
+DELETE FROM friendships WHERE id IN (
+    SELECT id FROM (
+        SELECT id, ROW_NUMBER() OVER (
+                   PARTITION BY user1, user2
+                   ORDER BY CASE status WHEN 'ACCEPTED' THEN 0 WHEN 'PENDING' THEN 1 ELSE 2 END, id DESC) AS rn
+        FROM friendships) ranked
+    WHERE ranked.rn > 1
+);
+
+ALTER TABLE friendships ADD CONSTRAINT uk_friendship_pair UNIQUE (user1, user2);
+
+-- Lookups by the larger name of the pair (the unique key serves user1)
+CREATE INDEX idx_friendships_user2 ON friendships (user2);
@@ -0,0 +1,7 @@
+-- Friend graph loads read a user's accepted and pending pairs from either side.
+-- Partial indexes leave rejected pairs out; queries use the literal predicate so generic plans match it.
+
+DROP INDEX idx_friendships_user2;
+
+CREATE INDEX idx_friendships_user1_active ON friendships (user1) WHERE status <> 'REJECTED';
+CREATE INDEX idx_friendships_user2_active ON friendships (user2) WHERE status <> 'REJECTED';
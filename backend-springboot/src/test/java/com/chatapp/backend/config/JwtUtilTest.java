@@ -2,11 +2,18 @@ package com.chatapp.backend.config;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 
 class JwtUtilTest {
 
+    // 256-bit test secrets
+    private static final String KEY_1 = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+    private static final String KEY_2 = "ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA=";
+
     private JwtUtil jwtUtil;
 
     @BeforeEach
@@ -60,4 +67,106 @@ class JwtUtilTest {
         // Then
         assertThat(isValid).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void authenticate_WithValidToken_ReturnsUsernameOnEveryCall() {
+        // Given
+        String token = jwtUtil.generateToken("alice");
+
+        // When
+        String first = jwtUtil.authenticate(token);
+        String second = jwtUtil.authenticate(token);
+
+        // Then
+        assertThat(first).isEqualTo("alice");
+        assertThat(second).isEqualTo("alice");
+    }
+
+    @Test
+    void authenticate_WithFullCache_KeepsMaxSizeAndStillVerifies() {
+        // Given
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 2);
+        String alice = jwtUtil.generateToken("alice");
+        String bob = jwtUtil.generateToken("bob");
+        String carol = jwtUtil.generateToken("carol");
+
+        // When
+        jwtUtil.authenticate(alice);
+        jwtUtil.authenticate(bob);
+        jwtUtil.authenticate(carol);
+
+        // Then - the oldest entry made room; evicted tokens are verified again
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens")).hasSize(2);
+        assertThat(jwtUtil.authenticate(alice)).isEqualTo("alice");
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens")).hasSize(2);
+    }
+
+    @Test
+    void authenticate_WithTamperedToken_ReturnsNull() {
+        // Given
+        String token = jwtUtil.generateToken("alice");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When
+        String username = jwtUtil.authenticate(tampered);
+
+        // Then
+        assertThat(username).isNull();
+    }
+
+    @Test
+    void authenticate_WithTokenFromOtherKey_ReturnsNull() {
+        // Given
+        String foreignToken = new JwtUtil().generateToken("alice");
+
+        // When
+        String username = jwtUtil.authenticate(foreignToken);
+
+        // Then
+        assertThat(username).isNull();
+    }
+
+    @Test
+    void authenticate_WithSharedKeySet_AcceptsTokenFromOtherInstance() {
+        // Given
+        JwtUtil instanceA = new JwtUtil("k1:" + KEY_1, "k1");
+        JwtUtil instanceB = new JwtUtil("k1:" + KEY_1, "k1");
+
+        // When
+        String username = instanceB.authenticate(instanceA.generateToken("alice"));
+
+        // Then
+        assertThat(username).isEqualTo("alice");
+    }
+
+    @Test
+    void authenticate_AfterRotation_AcceptsTokensOfBothKeys() {
+        // Given - old instance signs with k1, rotated instance signs with k2
+        JwtUtil oldInstance = new JwtUtil("k1:" + KEY_1, "k1");
+        JwtUtil rotated = new JwtUtil("k1:" + KEY_1 + ",k2:" + KEY_2, "k2");
+        JwtUtil retired = new JwtUtil("k2:" + KEY_2, "k2");
+        String oldToken = oldInstance.generateToken("alice");
+
+        // When & Then
+        assertThat(rotated.authenticate(oldToken)).isEqualTo("alice");
+        assertThat(rotated.authenticate(rotated.generateToken("bob"))).isEqualTo("bob");
+        assertThat(retired.authenticate(oldToken)).isNull();
+    }
+
+    @Test
+    void constructor_WithUnknownActiveKey_Throws() {
+        // When & Then
+        assertThatThrownBy(() -> new JwtUtil("k1:" + KEY_1, "k9"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void constructor_WhenKeysRequired_RejectsMissingKeySetOrActiveKey() {
+        // When & Then
+        assertThatThrownBy(() -> new JwtUtil("", "", true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new JwtUtil("k1:" + KEY_1, "", true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(new JwtUtil("k1:" + KEY_1, "k1", true).generateToken("alice")).isNotEmpty();
+    }
+}
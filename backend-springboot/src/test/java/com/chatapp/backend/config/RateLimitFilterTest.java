@@ -0,0 +1,127 @@
+package com.chatapp.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "jsonMapper", JsonMapper.builder().build());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "authCapacity", 10.0);
+        ReflectionTestUtils.setField(filter, "authRefillPerSecond", 0.2);
+        ReflectionTestUtils.setField(filter, "pollingCapacity", 30.0);
+        ReflectionTestUtils.setField(filter, "pollingRefillPerSecond", 5.0);
+        ReflectionTestUtils.setField(filter, "apiCapacity", 60.0);
+        ReflectionTestUtils.setField(filter, "apiRefillPerSecond", 20.0);
+        ReflectionTestUtils.setField(filter, "idleMs", 600000L);
+        ReflectionTestUtils.setField(filter, "nanoClock", (LongSupplier) now::get);
+        filter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void login_OverBurstFromSameIp_Returns429WithRetryAfter() throws Exception {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            assertThat(send("/api/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+
+        // When
+        MockHttpServletResponse response = send("/api/auth/login", "10.0.0.1");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("5");
+        assertThat(response.getContentAsString()).contains("RATE_LIMITED");
+        assertThat(meterRegistry.counter("chat.rate_limit.rejected", "group", "auth").count()).isEqualTo(1.0);
+
+        // Other clients have their own bucket
+        assertThat(send("/api/auth/login", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void limitedClient_AfterRefill_IsServedAgain() throws Exception {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            send("/api/auth/register", "10.0.0.1");
+        }
+        assertThat(send("/api/auth/register", "10.0.0.1").getStatus()).isEqualTo(429);
+
+        // When - one token refills after 5 seconds at 0.2/s
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        // Then
+        assertThat(send("/api/auth/register", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(send("/api/auth/register", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void authenticatedUser_LimitedPerUsernameAndGroup() throws Exception {
+        // Given
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, Collections.emptyList()));
+        for (int i = 0; i < 30; i++) {
+            send("/api/messages/check-notif", "10.0.0." + i);
+        }
+
+        // When
+        MockHttpServletResponse polling = send("/api/messages/check-notif", "10.0.0.99");
+        MockHttpServletResponse other = send("/api/friends/search", "10.0.0.99");
+
+        // Then
+        assertThat(polling.getStatus()).isEqualTo(429);
+        assertThat(other.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void evictIdleBuckets_DropsOnlyIdleBuckets() throws Exception {
+        // Given
+        send("/api/auth/login", "10.0.0.1");
+        now.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        send("/api/auth/login", "10.0.0.2");
+
+        // When
+        filter.evictIdleBuckets();
+
+        // Then
+        assertThat(meterRegistry.get("chat.rate_limit.buckets").gauge().value()).isEqualTo(1.0);
+    }
+
+    private MockHttpServletResponse send(String path, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
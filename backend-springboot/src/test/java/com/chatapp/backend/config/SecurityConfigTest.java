@@ -0,0 +1,51 @@
+package com.chatapp.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SecurityConfigTest {
+
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        SecurityConfig config = new SecurityConfig();
+        ReflectionTestUtils.setField(config, "bcryptCost", 5);
+        passwordEncoder = config.passwordEncoder();
+    }
+
+    @Test
+    void encode_StoresSchemePrefix() {
+        // When
+        String hash = passwordEncoder.encode("secret");
+
+        // Then
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+        assertThat(passwordEncoder.matches("secret", hash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    void upgradeEncoding_UnprefixedHashAtCurrentCost_IsUpToDate() {
+        // Given - stored before hashes carried the scheme prefix
+        String hash = new BCryptPasswordEncoder(5).encode("secret");
+
+        // When & Then
+        assertThat(passwordEncoder.matches("secret", hash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    void upgradeEncoding_UnprefixedHashAtLowerCost_IsOutdated() {
+        // Given
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        // When & Then
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isTrue();
+    }
+}
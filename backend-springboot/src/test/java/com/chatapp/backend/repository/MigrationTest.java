@@ -0,0 +1,114 @@
+package com.chatapp.backend.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Applies the Flyway migrations to an embedded PostgreSQL seeded with data in the original (V1) schema,
+ * the state production databases were baselined at, and checks the data survives every step.
+ */
+class MigrationTest {
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void migrate_FromSeededBaseline_KeepsData() {
+        // Given
+        migrate(postgres.getPostgresDatabase(), "1");
+        jdbc.update("INSERT INTO users (username, password, photo) VALUES ('alice', 'hash-a', ?), ('bob', 'hash-b', NULL), "
+                + "('carol', 'hash-c', NULL)", (Object) new byte[] {1, 2, 3});
+        jdbc.update("INSERT INTO messages (id, sender, receiver, content, is_read, created_at) VALUES "
+                + "(1, 'alice', 'bob', 'hi', TRUE, TIMESTAMP '2024-01-01 10:00'), "
+                + "(2, 'bob', 'alice', 'hey', TRUE, TIMESTAMP '2024-01-01 10:01'), "
+                + "(3, 'alice', 'bob', 'are you there?', FALSE, TIMESTAMP '2024-01-01 10:02'), "
+                + "(4, 'alice', 'bob', 'hello?', FALSE, TIMESTAMP '2024-01-01 10:03'), "
+                + "(5, 'dave', 'alice', 'from a deleted account', FALSE, TIMESTAMP '2024-01-01 10:04')");
+        // The same pair stored twice, in both orders, plus a rejected request
+        jdbc.update("INSERT INTO friendships (user1, user2, status, initiated_by) VALUES "
+                + "('bob', 'alice', 'ACCEPTED', 'bob'), "
+                + "('alice', 'bob', 'PENDING', 'alice'), "
+                + "('carol', 'alice', 'REJECTED', 'carol')");
+
+        // When
+        migrate(postgres.getPostgresDatabase(), "latest");
+
+        // Then
+        Long alice = userId("alice");
+        Long bob = userId("bob");
+        Long carol = userId("carol");
+        assertThat(jdbc.queryForList("SELECT username FROM users", String.class))
+                .as("no placeholder for a name without an account").containsExactlyInAnyOrder("alice", "bob", "carol");
+
+        assertThat(jdbc.queryForObject("SELECT content_hash FROM user_photos WHERE user_id = ?", String.class, alice))
+                .isEqualTo("039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81");
+
+        List<Map<String, Object>> friendships = jdbc.queryForList(
+                "SELECT user1_id, user2_id, status FROM friendships ORDER BY status");
+        assertThat(friendships).hasSize(2);
+        assertThat(friendships.get(0)).containsEntry("user1_id", Math.min(alice, bob))
+                .containsEntry("user2_id", Math.max(alice, bob)).containsEntry("status", "ACCEPTED");
+        assertThat(friendships.get(1)).containsEntry("user1_id", Math.min(alice, carol))
+                .containsEntry("status", "REJECTED");
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM conversations", Integer.class))
+                .as("alice and bob only").isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(DISTINCT conversation_id) FROM messages "
+                + "WHERE sender_id IN (?, ?) AND receiver_id IN (?, ?)", Integer.class, alice, bob, alice, bob))
+                .isEqualTo(1);
+
+        assertThat(unreadMessages(bob, alice)).isEqualTo(2);
+        assertThat(unreadMessages(alice, bob)).isZero();
+        assertThat(summaryUnreadCount(bob, alice)).isEqualTo(2);
+        assertThat(jdbc.queryForObject("SELECT last_received_id FROM conversation_summaries "
+                + "WHERE owner_id = ? AND peer_id = ?", Integer.class, bob, alice)).isEqualTo(4);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM messages", Integer.class))
+                .as("the deleted account's message is dropped").isEqualTo(4);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM conversation_summaries", Integer.class)).isEqualTo(2);
+
+        assertThat(jdbc.queryForObject("SELECT nextval('messages_id_seq')", Long.class)).isGreaterThan(5);
+    }
+
+    private static void migrate(DataSource dataSource, String target) {
+        Flyway.configure().dataSource(dataSource).target(target).load().migrate();
+    }
+
+    private Long userId(String username) {
+        return jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    // Unread the way the app counts it: messages above the reader's watermark
+    private int unreadMessages(Long reader, Long peer) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM messages m "
+                + "LEFT JOIN read_watermarks w ON w.reader_id = m.receiver_id AND w.peer_id = m.sender_id "
+                + "WHERE m.receiver_id = ? AND m.sender_id = ? AND m.id > COALESCE(w.last_read_message_id, 0)",
+                Integer.class, reader, peer);
+    }
+
+    private int summaryUnreadCount(Long owner, Long peer) {
+        return jdbc.queryForObject("SELECT unread_count FROM conversation_summaries WHERE owner_id = ? AND peer_id = ?",
+                Integer.class, owner, peer);
+    }
+}
@@ -0,0 +1,225 @@
+package com.chatapp.backend.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on every repository query against an embedded PostgreSQL built by the Flyway
+ * migrations, the same schema production runs (Hibernate only validates it).
+ * Fails when a query reads a whole table: a Seq Scan, or an index scan without an equality seek.
+ * - Each query is planned as a generic prepared statement, so the plan does not depend on parameter values
+ * - Sequential scans are disabled: on empty tables Postgres would otherwise prefer them to any index
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.chatapp.backend.repository.QueryPlanTest$RecordingInspector")
+@Transactional
+class QueryPlanTest {
+
+    // Queries known to scan, with the reason
+    private static final Map<String, String> KNOWN_SCANS = Map.of(
+            "lockWithoutVariants", "thumbnail backfill after startup, in batches, off the request path");
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserPhotoRepository userPhotoRepository;
+
+    @Autowired
+    private UserPhotoVariantRepository variantRepository;
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationSummaryRepository summaryRepository;
+
+    @Autowired
+    private ReadWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    // Production settings: Flyway builds the schema, Hibernate validates the entities against it
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    // Records the SQL Hibernate prepares on the test thread (background jobs are ignored)
+    public static class RecordingInspector implements StatementInspector {
+        static volatile Thread recordingThread;
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == recordingThread) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @Test
+    void repositoryQueries_NeverScanWholeTable() {
+        // Given - users 1 and 2 for the upserts' foreign keys (rolled back with the test)
+        jdbcTemplate.update("INSERT INTO users (id, username, created_at, updated_at) "
+                + "VALUES (1, 'alice', now(), now()), (2, 'bob', now(), now())");
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("existsByUsername", () -> userRepository.existsByUsername("alice"));
+        queries.put("findByUsername", () -> userRepository.findByUsername("alice"));
+        queries.put("findIdByUsername", () -> userRepository.findIdByUsername("alice"));
+        queries.put("findKeysByIds", () -> userRepository.findKeysByIds(List.of(1L, 2L)));
+        queries.put("findExistingUsernames", () -> userRepository.findExistingUsernames(List.of("alice", "bob")));
+        queries.put("updatePassword", () -> userRepository.updatePassword("alice", "old", "new"));
+        queries.put("findVersionByUserId", () -> userPhotoRepository.findVersionByUserId(1L));
+        queries.put("findVersionsByUsernameIn", () -> userPhotoRepository.findVersionsByUsernameIn(List.of("alice", "bob")));
+        queries.put("findByUserIdAndSize", () -> variantRepository.findByUserIdAndSize(1L, 84));
+        queries.put("findVersionByUserIdAndSize", () -> variantRepository.findVersionByUserIdAndSize(1L, 84));
+        queries.put("findByUserIdInAndSize", () -> variantRepository.findByUserIdInAndSize(List.of(1L, 2L), 84));
+        queries.put("findVersionsByUsernameInAndSize",
+                () -> variantRepository.findVersionsByUsernameInAndSize(List.of("alice", "bob"), 84));
+        queries.put("lockWithoutVariants", () -> userPhotoRepository.lockWithoutVariants(Limit.of(20)));
+        queries.put("deleteByUserId", () -> variantRepository.deleteByUserId(1L));
+        queries.put("findActiveByUser1", () -> friendshipRepository.findActiveByUser1(1L));
+        queries.put("findActiveByUser2", () -> friendshipRepository.findActiveByUser2(1L));
+        queries.put("findByUsers", () -> friendshipRepository.findByUsers(1L, 2L));
+        queries.put("reopenRejected", () -> friendshipRepository.reopenRejected(1L, 2L, 1L, LocalDateTime.now()));
+        queries.put("findIdByUsers", () -> conversationRepository.findIdByUsers(1L, 2L));
+        queries.put("lockAll", () -> conversationRepository.lockAll(List.of(1, 2)));
+        queries.put("findByConversation", () -> messageRepository.findByConversation(1));
+        queries.put("findByConversationSince", () -> messageRepository.findByConversationSince(1, 0));
+        queries.put("findPageInConversation",
+                () -> messageRepository.findPageInConversation(1, Integer.MAX_VALUE, Limit.of(51)));
+        queries.put("countUnreadMessages", () -> messageRepository.countUnreadMessages(1L, 2L));
+        queries.put("nextIds", () -> messageRepository.nextIds(3));
+        queries.put("findByOwnerIdOrderByLastMessageAtDesc", () -> summaryRepository.findByOwnerIdOrderByLastMessageAtDesc(1L));
+        queries.put("findUnreadByOwner", () -> summaryRepository.findUnreadByOwner(1L));
+        queries.put("createIfMissing", () -> summaryRepository.createIfMissing(1L, 2L, LocalDateTime.now()));
+        queries.put("recordMessage", () -> summaryRepository.recordMessage(1L, 2L, "hi", LocalDateTime.now(), 1, 10));
+        queries.put("findForUpdate", () -> summaryRepository.findForUpdate(1L, 2L));
+        queries.put("markRead", () -> summaryRepository.markRead(1L, 2L, 10));
+        queries.put("setUnreadCount", () -> summaryRepository.setUnreadCount(1L, 2L, 1));
+        queries.put("advance", () -> watermarkRepository.advance(1L, 2L, 10));
+
+        // When
+        List<String> scans = new ArrayList<>();
+        List<String> fixed = new ArrayList<>();
+        RecordingInspector.recordingThread = Thread.currentThread();
+        try {
+            queries.forEach((name, query) -> {
+                RecordingInspector.statements.clear();
+                query.run();
+                assertThat(RecordingInspector.statements).as(name).isNotEmpty();
+
+                List<List<String>> plans = RecordingInspector.statements.stream().map(this::explain).toList();
+                boolean scanned = plans.stream().anyMatch(QueryPlanTest::scansWholeTable);
+                if (scanned && !KNOWN_SCANS.containsKey(name)) {
+                    scans.add(name + ":\n" + plans.stream().map(plan -> String.join("\n", plan)).toList());
+                } else if (!scanned && KNOWN_SCANS.containsKey(name)) {
+                    fixed.add(name);
+                }
+            });
+        } finally {
+            RecordingInspector.recordingThread = null;
+        }
+
+        // Then
+        assertThat(scans).as("queries reading a whole table").isEmpty();
+        assertThat(fixed).as("no longer scanning, remove from KNOWN_SCANS").isEmpty();
+    }
+
+    // One plan node per header line (the root, then each "->"); its conditions follow on indented lines
+    private static boolean scansWholeTable(List<String> plan) {
+        String node = null;
+        boolean seek = false;
+        for (int i = 0; i < plan.size(); i++) {
+            String line = plan.get(i).strip();
+            if (i == 0 || line.startsWith("->")) {
+                if (isIndexScan(node) && !seek) {
+                    return true;
+                }
+                node = line.startsWith("->") ? line.substring(2).strip() : line;
+                seek = false;
+                if (node.startsWith("Seq Scan")) {
+                    return true;
+                }
+            } else if (line.startsWith("Index Cond:") && line.contains(" = ")) {
+                seek = true;
+            }
+        }
+        return isIndexScan(node) && !seek;
+    }
+
+    private static boolean isIndexScan(String node) {
+        return node != null && (node.contains("Index Scan") || node.contains("Index Only Scan"));
+    }
+
+    // EXPLAIN the generic plan of the statement, with every parameter bound to NULL
+    private List<String> explain(String sql) {
+        StringBuilder prepared = new StringBuilder();
+        int parameters = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                prepared.append('$').append(++parameters);
+            } else {
+                prepared.append(c);
+            }
+        }
+
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE plan_check AS " + prepared);
+        try {
+            String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+            return jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_check" + arguments, String.class);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_check");
+        }
+    }
+}
@@ -16,9 +16,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,11 +32,14 @@ class AuthServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
     @InjectMocks
     private AuthService authService;
 
@@ -51,8 +54,8 @@ class AuthServiceTest {
     void login_WithValidCredentials_ReturnsTokenAndUserResponse() {
         // Given
         LoginRequest request = new LoginRequest("alice", "password123");
-        when(userRepository.findById("alice")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("password123", testUser.getPassword())).thenReturn(true);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches("password123", testUser.getPassword())).thenReturn(true);
         when(jwtUtil.generateToken("alice")).thenReturn("mock-jwt-token");
 
         // When
@@ -62,16 +65,52 @@ class AuthServiceTest {
         assertThat(response.success()).isTrue();
         assertThat(response.data().username()).isEqualTo("alice");
         assertThat(response.data().token()).isEqualTo("mock-jwt-token");
-        verify(userRepository).findById("alice");
-        verify(passwordEncoder).matches("password123", testUser.getPassword());
+        verify(userRepository).findByUsername("alice");
+        verify(passwordHasher).matches("password123", testUser.getPassword());
         verify(jwtUtil).generateToken("alice");
     }
 
+    @Test
+    void login_WithOutdatedHash_StoresRehashedPassword() {
+        // Given
+        LoginRequest request = new LoginRequest("alice", "password123");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches("password123", testUser.getPassword())).thenReturn(true);
+        when(passwordHasher.needsRehash(testUser.getPassword())).thenReturn(true);
+        when(passwordHasher.encodeAsync("password123"))
+                .thenReturn(CompletableFuture.completedFuture("{bcrypt}$2a$12$newHash"));
+        when(userRepository.updatePassword("alice", testUser.getPassword(), "{bcrypt}$2a$12$newHash"))
+                .thenReturn(1);
+
+        // When
+        ApiResponse<UserResponse> response = authService.login(request);
+
+        // Then
+        assertThat(response.success()).isTrue();
+        verify(userRepository).updatePassword("alice", "$2a$10$hashedPassword", "{bcrypt}$2a$12$newHash");
+    }
+
+    @Test
+    void login_WithCurrentHash_DoesNotRehash() {
+        // Given
+        LoginRequest request = new LoginRequest("alice", "password123");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches("password123", testUser.getPassword())).thenReturn(true);
+        when(passwordHasher.needsRehash(testUser.getPassword())).thenReturn(false);
+
+        // When
+        authService.login(request);
+
+        // Then
+        verify(passwordHasher, never()).encodeAsync(anyString());
+        verify(userRepository, never()).updatePassword(anyString(), anyString(), anyString());
+    }
+
     @Test
     void login_WithInvalidUsername_ThrowsAuthenticationException() {
         // Given
         LoginRequest request = new LoginRequest("unknown", "password123");
-        when(userRepository.findById("unknown")).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> authService.login(request))
@@ -83,8 +122,8 @@ class AuthServiceTest {
     void login_WithInvalidPassword_ThrowsAuthenticationException() {
         // Given
         LoginRequest request = new LoginRequest("alice", "wrongPassword");
-        when(userRepository.findById("alice")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("wrongPassword", testUser.getPassword())).thenReturn(false);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches("wrongPassword", testUser.getPassword())).thenReturn(false);
 
         // When & Then
         assertThatThrownBy(() -> authService.login(request))
@@ -108,7 +147,7 @@ class AuthServiceTest {
         // Given
         RegisterRequest request = new RegisterRequest("bob", "password123");
         when(userRepository.existsByUsername("bob")).thenReturn(false);
-        when(passwordEncoder.encode("password123")).thenReturn("$2a$10$hashedPassword");
+        when(passwordHasher.encode("password123")).thenReturn("$2a$10$hashedPassword");
         when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // When
@@ -118,8 +157,9 @@ class AuthServiceTest {
         assertThat(response.success()).isTrue();
         assertThat(response.data().username()).isEqualTo("bob");
         verify(userRepository).existsByUsername("bob");
-        verify(passwordEncoder).encode("password123");
+        verify(passwordHasher).encode("password123");
         verify(userRepository).save(any(User.class));
+        verify(userSearchIndex).add("bob");
     }
 
     @Test
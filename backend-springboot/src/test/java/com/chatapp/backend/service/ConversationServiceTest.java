@@ -0,0 +1,95 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.model.Conversation;
+import com.chatapp.backend.repository.ConversationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationServiceTest {
+
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ConversationService conversationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(conversationService, "maxCacheSize", 100);
+        conversationService.init();
+    }
+
+    @Test
+    void findId_EitherOrder_QueriesCanonicalPairOnce() {
+        // Given
+        when(conversationRepository.findIdByUsers(ALICE, BOB)).thenReturn(Optional.of(7));
+
+        // When
+        Optional<Integer> first = conversationService.findId(BOB, ALICE);
+        Optional<Integer> second = conversationService.findId(ALICE, BOB);
+
+        // Then
+        assertThat(first).contains(7);
+        assertThat(second).contains(7);
+        verify(conversationRepository, times(1)).findIdByUsers(ALICE, BOB);
+    }
+
+    @Test
+    void getOrCreateId_NewPair_CreatesCanonicalConversation() {
+        // Given
+        when(conversationRepository.findIdByUsers(ALICE, BOB)).thenReturn(Optional.empty());
+        when(conversationRepository.saveAndFlush(any(Conversation.class))).thenAnswer(i -> {
+            Conversation conversation = i.getArgument(0);
+            ReflectionTestUtils.setField(conversation, "id", 9);
+            return conversation;
+        });
+
+        // When
+        int id = conversationService.getOrCreateId(BOB, ALICE);
+
+        // Then
+        ArgumentCaptor<Conversation> saved = ArgumentCaptor.forClass(Conversation.class);
+        verify(conversationRepository).saveAndFlush(saved.capture());
+        assertThat(id).isEqualTo(9);
+        assertThat(saved.getValue().getUser1Id()).isEqualTo(ALICE);
+        assertThat(saved.getValue().getUser2Id()).isEqualTo(BOB);
+        assertThat(conversationService.findId(ALICE, BOB)).contains(9);
+    }
+
+    @Test
+    void getOrCreateId_WhenCreatedConcurrently_ReturnsExistingId() {
+        // Given
+        when(conversationRepository.findIdByUsers(ALICE, BOB))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(5));
+        when(conversationRepository.saveAndFlush(any(Conversation.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_conversation_pair"));
+
+        // When
+        int id = conversationService.getOrCreateId(ALICE, BOB);
+
+        // Then
+        assertThat(id).isEqualTo(5);
+    }
+}
@@ -0,0 +1,172 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.model.Friendship;
+import com.chatapp.backend.model.Friendship.FriendshipStatus;
+import com.chatapp.backend.repository.FriendshipRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendGraphTest {
+
+    private static final Map<String, Long> USER_IDS = Map.of("aaron", 1L, "alice", 2L, "bob", 3L, "carol", 4L);
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FriendGraph friendGraph;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(friendGraph, "maxUsers", 2);
+        ReflectionTestUtils.setField(friendGraph, "ttlMs", 30000L);
+        ReflectionTestUtils.setField(friendGraph, "nanoClock", (LongSupplier) now::get);
+        friendGraph.init();
+        lenient().when(userDirectory.findId(anyString()))
+                .thenAnswer(i -> Optional.ofNullable(USER_IDS.get(i.<String>getArgument(0))));
+        lenient().when(userDirectory.usernamesOf(anyCollection())).thenAnswer(i -> {
+            Map<Long, String> usernames = new HashMap<>();
+            USER_IDS.forEach((username, id) -> usernames.put(id, username));
+            return usernames;
+        });
+    }
+
+    @Test
+    void getFriends_WhenWarm_DoesNotQueryAgain() {
+        // Given
+        Friendship accepted = new Friendship(3L, 2L, 3L);
+        accepted.setStatus(FriendshipStatus.ACCEPTED);
+        Friendship incoming = new Friendship(4L, 2L, 4L);
+        Friendship outgoing = new Friendship(2L, 1L, 2L);
+        when(friendshipRepository.findActiveByUser1(2L))
+                .thenReturn(List.of(accepted, incoming));
+        when(friendshipRepository.findActiveByUser2(2L))
+                .thenReturn(List.of(outgoing));
+
+        // When
+        List<String> friends = friendGraph.getFriends("alice");
+        List<String> requests = friendGraph.getIncomingRequests("alice");
+
+        // Then - alice's own request to aaron is not an incoming one
+        assertThat(friends).containsExactly("bob");
+        assertThat(requests).containsExactly("carol");
+        verify(friendshipRepository, times(1)).findActiveByUser1(2L);
+    }
+
+    @Test
+    void onFriendshipChanged_UpdatesCachedUsersWithoutReloading() {
+        // Given
+        when(friendshipRepository.findActiveByUser1(anyLong())).thenReturn(List.of());
+        when(friendshipRepository.findActiveByUser2(anyLong())).thenReturn(List.of());
+        friendGraph.getFriends("alice");
+        friendGraph.getFriends("bob");
+
+        // When
+        friendGraph.onFriendshipChanged(new FriendshipChangedEvent("alice", "bob", FriendshipStatus.PENDING));
+
+        // Then
+        assertThat(friendGraph.getIncomingRequests("bob")).containsExactly("alice");
+        assertThat(friendGraph.getIncomingRequests("alice")).isEmpty();
+
+        // When
+        friendGraph.onFriendshipChanged(new FriendshipChangedEvent("alice", "bob", FriendshipStatus.ACCEPTED));
+
+        // Then
+        assertThat(friendGraph.getFriends("alice")).containsExactly("bob");
+        assertThat(friendGraph.getFriends("bob")).containsExactly("alice");
+        assertThat(friendGraph.getIncomingRequests("bob")).isEmpty();
+        verify(friendshipRepository, times(2)).findActiveByUser1(anyLong());
+    }
+
+    @Test
+    void onFriendshipChanged_Rejected_RemovesFriendsAndRequests() {
+        // Given
+        Friendship accepted = new Friendship(2L, 3L, 2L);
+        accepted.setStatus(FriendshipStatus.ACCEPTED);
+        when(friendshipRepository.findActiveByUser1(2L)).thenReturn(List.of(accepted));
+        when(friendshipRepository.findActiveByUser2(2L)).thenReturn(List.of());
+        when(friendshipRepository.findActiveByUser1(3L)).thenReturn(List.of());
+        when(friendshipRepository.findActiveByUser2(3L)).thenReturn(List.of(accepted));
+        friendGraph.getFriends("alice");
+        friendGraph.getFriends("bob");
+
+        // When
+        friendGraph.onFriendshipChanged(new FriendshipChangedEvent("alice", "bob", FriendshipStatus.REJECTED));
+
+        // Then
+        assertThat(friendGraph.getFriends("alice")).isEmpty();
+        assertThat(friendGraph.getFriends("bob")).isEmpty();
+    }
+
+    @Test
+    void edges_AfterTtl_ReloadsChangesMadeElsewhere() {
+        // Given
+        when(friendshipRepository.findActiveByUser2(2L)).thenReturn(List.of());
+        when(friendshipRepository.findActiveByUser1(2L)).thenReturn(List.of());
+        friendGraph.getFriends("alice");
+        friendGraph.onFriendshipChanged(new FriendshipChangedEvent("aaron", "alice", FriendshipStatus.PENDING));
+
+        // When - bob accepted alice's request on another instance
+        Friendship accepted = new Friendship(2L, 3L, 2L);
+        accepted.setStatus(FriendshipStatus.ACCEPTED);
+        when(friendshipRepository.findActiveByUser1(2L)).thenReturn(List.of(accepted));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        List<String> beforeTtl = friendGraph.getFriends("alice");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        List<String> afterTtl = friendGraph.getFriends("alice");
+
+        // Then - the write-through update did not extend the entry's lifetime
+        assertThat(beforeTtl).isEmpty();
+        assertThat(afterTtl).containsExactly("bob");
+        verify(friendshipRepository, times(2)).findActiveByUser1(2L);
+    }
+
+    @Test
+    void edges_BeyondMaxUsers_EvictsLeastRecentlyUsed() {
+        // Given
+        when(friendshipRepository.findActiveByUser1(anyLong())).thenReturn(List.of());
+        when(friendshipRepository.findActiveByUser2(anyLong())).thenReturn(List.of());
+        friendGraph.getFriends("alice");
+        friendGraph.getFriends("bob");
+        friendGraph.getFriends("alice");
+
+        // When
+        friendGraph.getFriends("carol");
+        friendGraph.getFriends("alice");
+        friendGraph.getFriends("bob");
+
+        // Then - bob was evicted for carol and reloaded; alice stayed warm
+        verify(friendshipRepository, times(1)).findActiveByUser1(2L);
+        verify(friendshipRepository, times(2)).findActiveByUser1(3L);
+        assertThat(meterRegistry.get("chat.friend_graph.users").gauge().value()).isEqualTo(2.0);
+    }
+}
@@ -9,16 +9,20 @@ import com.chatapp.backend.model.Friendship.FriendshipStatus;
 import com.chatapp.backend.repository.FriendshipRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import java.util.Arrays;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,20 +31,25 @@ class FriendServiceTest {
     @Mock
     private FriendshipRepository friendshipRepository;
 
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private InboxService inboxService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private FriendService friendService;
 
     @Test
     void getFriends_ReturnsAcceptedFriendsList() {
         // Given
-        Friendship f1 = new Friendship("alice", "bob", "alice");
-        f1.setStatus(FriendshipStatus.ACCEPTED);
-
-        Friendship f2 = new Friendship("charlie", "alice", "charlie");
-        f2.setStatus(FriendshipStatus.ACCEPTED);
-
-        when(friendshipRepository.findAcceptedFriendships("alice"))
-                .thenReturn(Arrays.asList(f1, f2));
+        when(friendGraph.getFriends("alice")).thenReturn(List.of("bob", "charlie"));
 
         // When
         ApiResponse<List<String>> response = friendService.getFriends("alice");
@@ -53,23 +62,27 @@ class FriendServiceTest {
     @Test
     void sendFriendRequest_WithValidUsers_CreatesRequest() {
         // Given
-        when(friendshipRepository.areFriends("alice", "bob")).thenReturn(false);
-        when(friendshipRepository.existsByUsersAndStatus("alice", "bob", FriendshipStatus.PENDING))
-                .thenReturn(false);
-        when(friendshipRepository.save(any(Friendship.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(friendshipRepository.saveAndFlush(any(Friendship.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // When
         ApiResponse<String> response = friendService.sendFriendRequest("alice", "bob");
 
         // Then
         assertThat(response.success()).isTrue();
-        verify(friendshipRepository).save(any(Friendship.class));
+        verify(friendshipRepository).saveAndFlush(any(Friendship.class));
+        verify(eventPublisher).publishEvent(new FriendshipChangedEvent("alice", "bob", FriendshipStatus.PENDING));
     }
 
     @Test
     void sendFriendRequest_WhenAlreadyFriends_ThrowsDuplicateResourceException() {
         // Given
-        when(friendshipRepository.areFriends("alice", "bob")).thenReturn(true);
+        Friendship accepted = new Friendship(1L, 2L, 2L);
+        accepted.setStatus(FriendshipStatus.ACCEPTED);
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(friendshipRepository.findByUsers(1L, 2L)).thenReturn(Optional.of(accepted));
 
         // When & Then
         assertThatThrownBy(() -> friendService.sendFriendRequest("alice", "bob"))
@@ -77,6 +90,83 @@ class FriendServiceTest {
                 .hasMessage("You are already friends");
     }
 
+    @Test
+    void sendFriendRequest_WhenPendingInDatabase_ThrowsDuplicateResourceException() {
+        // Given - the request was sent through another instance
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(friendshipRepository.findByUsers(1L, 2L)).thenReturn(Optional.of(new Friendship(1L, 2L, 2L)));
+
+        // When & Then
+        assertThatThrownBy(() -> friendService.sendFriendRequest("alice", "bob"))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Friend request already sent");
+        verify(friendshipRepository, never()).saveAndFlush(any(Friendship.class));
+    }
+
+    @Test
+    void sendFriendRequest_StoresPairInCanonicalOrder() {
+        // Given
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(friendshipRepository.saveAndFlush(any(Friendship.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // When
+        friendService.sendFriendRequest("bob", "alice");
+
+        // Then
+        ArgumentCaptor<Friendship> saved = ArgumentCaptor.forClass(Friendship.class);
+        verify(friendshipRepository).reopenRejected(eq(1L), eq(2L), eq(2L), any(LocalDateTime.class));
+        verify(friendshipRepository).saveAndFlush(saved.capture());
+        assertThat(saved.getValue().getUser1Id()).isEqualTo(1L);
+        assertThat(saved.getValue().getUser2Id()).isEqualTo(2L);
+        assertThat(saved.getValue().getInitiatedById()).isEqualTo(2L);
+    }
+
+    @Test
+    void sendFriendRequest_AfterRejection_ReopensExistingPair() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(friendshipRepository.reopenRejected(eq(1L), eq(2L), eq(1L), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        // When
+        ApiResponse<String> response = friendService.sendFriendRequest("alice", "bob");
+
+        // Then
+        assertThat(response.success()).isTrue();
+        verify(friendshipRepository, never()).saveAndFlush(any(Friendship.class));
+    }
+
+    @Test
+    void sendFriendRequest_WhenPairInsertConflicts_ThrowsDuplicateResourceException() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(friendshipRepository.saveAndFlush(any(Friendship.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_friendship_pair"));
+
+        // When & Then
+        assertThatThrownBy(() -> friendService.sendFriendRequest("alice", "bob"))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Friend request already sent");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void sendFriendRequest_ToUnknownUser_ThrowsResourceNotFoundException() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userDirectory.requireId("ghost")).thenThrow(new ResourceNotFoundException("User not found"));
+
+        // When & Then
+        assertThatThrownBy(() -> friendService.sendFriendRequest("alice", "ghost"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("User not found");
+        verify(friendshipRepository, never()).saveAndFlush(any(Friendship.class));
+    }
+
     @Test
     void sendFriendRequest_ToSelf_ThrowsValidationException() {
         // When & Then
@@ -88,10 +178,12 @@ class FriendServiceTest {
     @Test
     void acceptFriendRequest_WithValidRequest_UpdatesStatusToAccepted() {
         // Given
-        Friendship friendship = new Friendship("alice", "bob", "alice");
+        Friendship friendship = new Friendship(1L, 2L, 1L);
         friendship.setStatus(FriendshipStatus.PENDING);
 
-        when(friendshipRepository.findByUsers("bob", "alice")).thenReturn(Optional.of(friendship));
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(userDirectory.findId("alice")).thenReturn(Optional.of(1L));
+        when(friendshipRepository.findByUsers(2L, 1L)).thenReturn(Optional.of(friendship));
         when(friendshipRepository.save(any(Friendship.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // When
@@ -101,16 +193,37 @@ class FriendServiceTest {
         assertThat(response.success()).isTrue();
         assertThat(friendship.getStatus()).isEqualTo(FriendshipStatus.ACCEPTED);
         verify(friendshipRepository).save(friendship);
+        verify(inboxService).openConversation(2L, 1L);
+        verify(eventPublisher).publishEvent(new FriendshipChangedEvent("alice", "bob", FriendshipStatus.ACCEPTED));
     }
 
     @Test
     void acceptFriendRequest_WhenNotFound_ThrowsResourceNotFoundException() {
         // Given
-        when(friendshipRepository.findByUsers("bob", "alice")).thenReturn(Optional.empty());
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(userDirectory.findId("alice")).thenReturn(Optional.of(1L));
+        when(friendshipRepository.findByUsers(2L, 1L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> friendService.acceptFriendRequest("bob", "alice"))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Friend request not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    void rejectFriendRequest_WhenAlreadyFriends_ThrowsValidationException() {
+        // Given
+        Friendship accepted = new Friendship(1L, 2L, 1L);
+        accepted.setStatus(FriendshipStatus.ACCEPTED);
+        when(userDirectory.requireId("bob")).thenReturn(2L);
+        when(userDirectory.findId("alice")).thenReturn(Optional.of(1L));
+        when(friendshipRepository.findByUsers(2L, 1L)).thenReturn(Optional.of(accepted));
+
+        // When & Then
+        assertThatThrownBy(() -> friendService.rejectFriendRequest("bob", "alice"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Friend request already processed");
+        assertThat(accepted.getStatus()).isEqualTo(FriendshipStatus.ACCEPTED);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
@@ -0,0 +1,181 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.InboxEntryResponse;
+import com.chatapp.backend.model.ConversationSummary;
+import com.chatapp.backend.repository.ConversationSummaryRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InboxServiceTest {
+
+    @Mock
+    private ConversationSummaryRepository summaryRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @InjectMocks
+    private InboxService inboxService;
+
+    @Test
+    void getUnreadCounts_ReturnsInboxCountsInActivityOrder() {
+        // Given
+        when(userDirectory.findId("alice")).thenReturn(Optional.of(1L));
+        when(summaryRepository.findUnreadByOwner(1L))
+                .thenReturn(List.of(unreadCount(3L, 1), unreadCount(2L, 3)));
+        when(userDirectory.usernamesOf(List.of(3L, 2L))).thenReturn(Map.of(3L, "charlie", 2L, "bob"));
+
+        // When
+        Map<String, Integer> counts = inboxService.getUnreadCounts("alice");
+
+        // Then
+        assertThat(counts).containsExactly(entry("charlie", 1), entry("bob", 3));
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void recordMessage_UpsertsBothSides_IncrementsOnlyReceiverUnread() {
+        // When
+        LocalDateTime sentAt = LocalDateTime.now();
+        inboxService.recordMessage(1L, 2L, 42, "Hi", sentAt);
+
+        // Then - one statement per side, rows created on the first message
+        verify(summaryRepository).recordMessage(1L, 2L, "Hi", sentAt, 0, 0);
+        verify(summaryRepository).recordMessage(2L, 1L, "Hi", sentAt, 1, 42);
+        verifyNoMoreInteractions(summaryRepository);
+    }
+
+    @Test
+    void recordMessage_WithLongContent_StoresTruncatedPreview() {
+        // Given
+        String longText = "x".repeat(500);
+
+        // When
+        inboxService.recordMessage(1L, 2L, 42, longText, LocalDateTime.now());
+
+        // Then
+        verify(summaryRepository, times(2)).recordMessage(any(), any(),
+                eq("x".repeat(ConversationSummary.PREVIEW_LENGTH)), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void recordMessage_EmojiAtPreviewBoundary_KeepsWholeEmoji() {
+        // Given - the emoji's two UTF-16 units straddle the cut
+        String text = "x".repeat(ConversationSummary.PREVIEW_LENGTH - 1) + "\uD83D\uDE00" + "tail";
+
+        // When
+        inboxService.recordMessage(1L, 2L, 42, text, LocalDateTime.now());
+
+        // Then
+        verify(summaryRepository, times(2)).recordMessage(any(), any(),
+                eq("x".repeat(ConversationSummary.PREVIEW_LENGTH - 1)), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void openConversation_CreatesMissingRowsForBothSides() {
+        // When
+        inboxService.openConversation(1L, 2L);
+
+        // Then
+        verify(summaryRepository).createIfMissing(eq(1L), eq(2L), any());
+        verify(summaryRepository).createIfMissing(eq(2L), eq(1L), any());
+    }
+
+    @Test
+    void markRead_NothingNewerThanRead_ZeroesUnread() {
+        // Given
+        when(summaryRepository.markRead(2L, 1L, 42)).thenReturn(1);
+
+        // When
+        inboxService.markRead(2L, 1L, 42);
+
+        // Then
+        verify(summaryRepository, never()).findForUpdate(any(), any());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void markRead_MessageSentAfterRead_StaysUnread() {
+        // Given - bob read up to 42, then alice's message 43 arrived before the receipt was flushed
+        LocalDateTime sentAt = LocalDateTime.now();
+        inboxService.recordMessage(1L, 2L, 43, "Still there?", sentAt);
+
+        ConversationSummary row = new ConversationSummary(2L, 1L, "Still there?", sentAt, 3);
+        when(summaryRepository.markRead(2L, 1L, 42)).thenReturn(0);
+        when(summaryRepository.findForUpdate(2L, 1L)).thenReturn(Optional.of(row));
+        when(messageRepository.countUnreadMessages(2L, 1L)).thenReturn(1);
+
+        // When
+        inboxService.markRead(2L, 1L, 42);
+
+        // Then
+        verify(summaryRepository).setUnreadCount(2L, 1L, 1);
+    }
+
+    @Test
+    void markRead_AlreadyRead_DoesNotRecount() {
+        // Given
+        when(summaryRepository.markRead(2L, 1L, 42)).thenReturn(0);
+        when(summaryRepository.findForUpdate(2L, 1L))
+                .thenReturn(Optional.of(new ConversationSummary(2L, 1L, "Hi", LocalDateTime.now(), 0)));
+
+        // When
+        inboxService.markRead(2L, 1L, 42);
+
+        // Then
+        verify(summaryRepository, never()).setUnreadCount(any(), any(), anyInt());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void getInbox_MapsRowsInRepositoryOrder() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        when(userDirectory.findId("alice")).thenReturn(Optional.of(1L));
+        when(summaryRepository.findByOwnerIdOrderByLastMessageAtDesc(1L)).thenReturn(List.of(
+                new ConversationSummary(1L, 2L, "Hi", now, 2),
+                new ConversationSummary(1L, 3L, null, now.minusDays(1), 0)));
+        when(userDirectory.usernamesOf(List.of(2L, 3L))).thenReturn(Map.of(2L, "bob", 3L, "charlie"));
+
+        // When
+        ApiResponse<List<InboxEntryResponse>> response = inboxService.getInbox("alice");
+
+        // Then
+        assertThat(response.data()).extracting(InboxEntryResponse::username).containsExactly("bob", "charlie");
+        assertThat(response.data().get(0).unreadCount()).isEqualTo(2);
+    }
+
+    private static ConversationSummaryRepository.UnreadCount unreadCount(Long peerId, int count) {
+        return new ConversationSummaryRepository.UnreadCount() {
+            @Override
+            public Long getPeerId() {
+                return peerId;
+            }
+
+            @Override
+            public int getUnreadCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.MessagePageResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.exception.ChatAppException;
+import com.chatapp.backend.exception.ResourceNotFoundException;
+import com.chatapp.backend.exception.ValidationException;
+import com.chatapp.backend.model.Message;
+import com.chatapp.backend.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ReadReceiptBuffer readReceiptBuffer;
+
+    @Mock
+    private MessageWriter messageWriter;
+
+    @Mock
+    private ConversationService conversationService;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private InboxService inboxService;
+
+    @InjectMocks
+    private MessageService messageService;
+
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+
+    private Message message(int id, long senderId, long receiverId) {
+        Message msg = new Message(7, senderId, receiverId, "msg " + id);
+        msg.assignId(id);
+        return msg;
+    }
+
+    @Test
+    void getMessagePage_LatestPage_ReturnsOldestFirstWithCursor() {
+        // Given - repository returns newest first, one row more than the limit
+        givenUsers();
+        when(conversationService.findId(ALICE, BOB)).thenReturn(Optional.of(7));
+        when(messageRepository.findPageInConversation(7, Integer.MAX_VALUE, Limit.of(3)))
+                .thenReturn(List.of(
+                        message(30, BOB, ALICE),
+                        message(20, ALICE, BOB),
+                        message(10, BOB, ALICE)));
+
+        // When
+        ApiResponse<MessagePageResponse> response =
+                messageService.getMessagePage("alice", "bob", null, null, 2);
+
+        // Then
+        assertThat(response.success()).isTrue();
+        assertThat(response.data().messages()).extracting(MessageResponse::id).containsExactly(20, 30);
+        assertThat(response.data().messages()).extracting(MessageResponse::sender).containsExactly("alice", "bob");
+        assertThat(response.data().nextCursor()).isNotNull();
+        verify(readReceiptBuffer).record("alice", "bob", 30);
+    }
+
+    @Test
+    void getMessagePage_WithCursor_SeeksBeforeCursorId() {
+        // Given
+        givenUsers();
+        when(conversationService.findId(ALICE, BOB)).thenReturn(Optional.of(7));
+        when(messageRepository.findPageInConversation(7, Integer.MAX_VALUE, Limit.of(3)))
+                .thenReturn(List.of(
+                        message(30, BOB, ALICE),
+                        message(20, ALICE, BOB),
+                        message(10, BOB, ALICE)));
+        String cursor = messageService.getMessagePage("alice", "bob", null, null, 2).data().nextCursor();
+
+        when(messageRepository.findPageInConversation(7, 20, Limit.of(3)))
+                .thenReturn(List.of(message(10, BOB, ALICE)));
+
+        // When
+        ApiResponse<MessagePageResponse> response =
+                messageService.getMessagePage("alice", "bob", cursor, null, 2);
+
+        // Then
+        assertThat(response.data().messages()).extracting(MessageResponse::id).containsExactly(10);
+        assertThat(response.data().nextCursor()).isNull();
+        verify(readReceiptBuffer, times(1)).record(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void getMessagePage_WithoutConversation_ReturnsEmptyPage() {
+        // Given
+        givenUsers();
+        when(conversationService.findId(ALICE, BOB)).thenReturn(Optional.empty());
+
+        // When
+        ApiResponse<MessagePageResponse> response =
+                messageService.getMessagePage("alice", "bob", null, null, 10);
+
+        // Then
+        assertThat(response.data().messages()).isEmpty();
+        assertThat(response.data().nextCursor()).isNull();
+        verifyNoInteractions(messageRepository, readReceiptBuffer);
+    }
+
+    @Test
+    void getMessagePage_WithInvalidCursor_ThrowsValidationException() {
+        // When & Then
+        assertThatThrownBy(() -> messageService.getMessagePage("alice", "bob", "not-a-cursor", null, 10))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void getMessagePage_WithLimitTooLarge_ThrowsValidationException() {
+        // When & Then
+        assertThatThrownBy(() -> messageService.getMessagePage("alice", "bob", null, null, 500))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void sendMessage_ToUnknownUser_ThrowsResourceNotFoundException() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(ALICE);
+        when(userDirectory.requireId("ghost")).thenThrow(new ResourceNotFoundException("User not found"));
+
+        // When & Then
+        assertThatThrownBy(() -> messageService.sendMessage("alice", "ghost", "hi"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("User not found");
+        verifyNoInteractions(conversationService, messageWriter);
+    }
+
+    @Test
+    void sendMessage_BatchNotCommittedInTime_AcceptedAsPending() {
+        // Given
+        givenSend();
+        when(messageWriter.isBatchingEnabled()).thenReturn(true);
+        when(messageWriter.submit(any(Message.class))).thenReturn(new CompletableFuture<>());
+        ReflectionTestUtils.setField(messageService, "sendAckTimeoutMs", 10L);
+
+        // When
+        ApiResponse<String> response = messageService.sendMessage("alice", "bob", "hi");
+
+        // Then
+        assertThat(response.success()).isTrue();
+        assertThat(response.message()).isEqualTo("Message accepted");
+    }
+
+    @Test
+    void sendMessage_BatchFailed_ThrowsChatAppException() {
+        // Given
+        givenSend();
+        when(messageWriter.isBatchingEnabled()).thenReturn(true);
+        when(messageWriter.submit(any(Message.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("insert failed")));
+        ReflectionTestUtils.setField(messageService, "sendAckTimeoutMs", 1000L);
+
+        // When & Then
+        assertThatThrownBy(() -> messageService.sendMessage("alice", "bob", "hi"))
+                .isInstanceOf(ChatAppException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void getUnreadSummary_ReadsInboxCounts() {
+        // Given
+        when(inboxService.getUnreadCounts("alice")).thenReturn(Map.of("bob", 3));
+
+        // When
+        ApiResponse<Map<String, Integer>> response = messageService.getUnreadSummary("alice");
+
+        // Then
+        assertThat(response.success()).isTrue();
+        assertThat(response.data()).containsExactly(entry("bob", 3));
+        verifyNoInteractions(messageRepository);
+    }
+
+    private void givenSend() {
+        when(userDirectory.requireId("alice")).thenReturn(ALICE);
+        when(userDirectory.requireId("bob")).thenReturn(BOB);
+        when(conversationService.getOrCreateId(ALICE, BOB)).thenReturn(7);
+    }
+
+    private void givenUsers() {
+        when(userDirectory.findId("alice")).thenReturn(Optional.of(ALICE));
+        when(userDirectory.findId("bob")).thenReturn(Optional.of(BOB));
+    }
+}
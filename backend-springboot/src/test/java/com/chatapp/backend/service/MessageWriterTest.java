@@ -0,0 +1,129 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.model.Message;
+import com.chatapp.backend.repository.ConversationRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriterTest {
+
+    private static final Map<Long, String> USERNAMES = Map.of(1L, "alice", 2L, "bob", 3L, "carol");
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private InboxService inboxService;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MessageWriter messageWriter;
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    @BeforeEach
+    void setUp() {
+        when(userDirectory.usernameOf(anyLong())).thenAnswer(i -> USERNAMES.get(i.<Long>getArgument(0)));
+        ReflectionTestUtils.setField(messageWriter, "batchingEnabled", true);
+        ReflectionTestUtils.setField(messageWriter, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(messageWriter, "maxLatencyMs", 500L);
+        ReflectionTestUtils.setField(messageWriter, "queueCapacity", 10);
+        messageWriter.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        messageWriter.stop();
+    }
+
+    @Test
+    void submit_FullBatch_WrittenInOneTransaction() throws Exception {
+        // Given
+        when(messageRepository.nextIds(anyInt())).thenAnswer(invocation -> nextIds(invocation.getArgument(0)));
+
+        // When
+        CompletableFuture<Message> first = messageWriter.submit(new Message(1, 1L, 2L, "1"));
+        CompletableFuture<Message> second = messageWriter.submit(new Message(1, 1L, 2L, "2"));
+        CompletableFuture<Message> third = messageWriter.submit(new Message(1, 3L, 2L, "3"));
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        // Then
+        InOrder order = inOrder(conversationRepository, messageRepository);
+        order.verify(conversationRepository).lockAll(List.of(1));
+        order.verify(messageRepository).nextIds(3);
+        order.verify(messageRepository, times(1)).saveAll(argThat(messages -> ((List<?>) messages).size() == 3));
+        verify(transactionManager, times(1)).commit(any());
+        verify(inboxService, times(3)).recordMessage(anyLong(), eq(2L), anyInt(), anyString(), any());
+        verify(eventPublisher, times(3)).publishEvent(any(Object.class));
+        assertThat(third.get().getContent()).isEqualTo("3");
+        assertThat(List.of(first.get().getId(), second.get().getId(), third.get().getId())).isSorted();
+    }
+
+    @Test
+    void submit_BatchFails_OnlyBadMessageFails() throws Exception {
+        // Given - the batch insert fails once, the individual retries succeed except for "bad"
+        when(messageRepository.nextIds(anyInt())).thenAnswer(invocation -> nextIds(invocation.getArgument(0)));
+        when(messageRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Message> messages = invocation.getArgument(0);
+            if (messages.size() > 1 || messages.get(0).getContent().equals("bad")) {
+                throw new IllegalStateException("insert failed");
+            }
+            return messages;
+        });
+
+        // When
+        CompletableFuture<Message> good = messageWriter.submit(new Message(1, 1L, 2L, "ok"));
+        CompletableFuture<Message> bad = messageWriter.submit(new Message(1, 1L, 2L, "bad"));
+        CompletableFuture<Message> other = messageWriter.submit(new Message(1, 1L, 2L, "ok too"));
+
+        // Then
+        assertThat(good.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("ok");
+        assertThat(other.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("ok too");
+        assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    // Sequence values, returned out of order like a set-returning query may
+    private List<Long> nextIds(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(0, (long) nextId.getAndIncrement());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordHasherTest {
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(passwordHasher, "threads", 1);
+        ReflectionTestUtils.setField(passwordHasher, "queueCapacity", 1);
+        ReflectionTestUtils.setField(passwordHasher, "timeoutMs", 5000L);
+        ReflectionTestUtils.setField(passwordHasher, "retryAfterSeconds", 2L);
+        passwordHasher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void matches_RunsOnHashingPool() {
+        // Given
+        when(passwordEncoder.matches("secret", "hash")).thenAnswer(invocation ->
+                Thread.currentThread().getName().startsWith("password-hasher-"));
+
+        // When & Then
+        assertThat(passwordHasher.matches("secret", "hash")).isTrue();
+    }
+
+    @Test
+    void encode_WhenPoolAndQueueAreFull_FailsFastWithRetryAfter() throws Exception {
+        // Given - one hash running, one queued
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.encode("slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHasher.encode("slow"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHasher.encode("slow"));
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHasher, "executor");
+        while (executor.getQueue().isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> passwordHasher.encode("slow"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .satisfies(e -> assertThat(((ServiceUnavailableException) e).getRetryAfterSeconds()).isEqualTo(2));
+        assertThat(meterRegistry.counter("chat.auth.hashing.rejected").count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+    }
+
+    @Test
+    void encodeAsync_WhenRehashQueueIsFull_DropsWithoutTouchingLoginPool() throws Exception {
+        // Given - the rehash thread is busy and its queue full
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.encode("slow")).thenAnswer(invocation -> {
+            release.await();
+            return Thread.currentThread().getName();
+        });
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        CompletableFuture<String> dropped;
+        do {
+            dropped = passwordHasher.encodeAsync("slow");
+            accepted.add(dropped);
+        } while (!dropped.isCompletedExceptionally());
+        accepted.remove(dropped);
+        when(passwordEncoder.matches("secret", "hash")).thenReturn(true);
+
+        // When & Then - logins are still served, the dropped rehash failed at once
+        assertThat(passwordHasher.matches("secret", "hash")).isTrue();
+        assertThatThrownBy(dropped::join).hasCauseInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(accepted.get(0).get(5, TimeUnit.SECONDS)).startsWith("password-rehash-");
+    }
+}
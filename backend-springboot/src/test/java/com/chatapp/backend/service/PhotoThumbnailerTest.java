@@ -0,0 +1,63 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PhotoThumbnailerTest {
+
+    private final PhotoThumbnailer photoThumbnailer = new PhotoThumbnailer();
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage read(byte[] bytes) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    void createThumbnails_ProducesSquarePngPerSize() throws IOException {
+        // Given
+        byte[] original = png(1200, 800);
+
+        // When
+        Map<Integer, byte[]> thumbnails = photoThumbnailer.createThumbnails(original, List.of(48, 96, 256));
+
+        // Then
+        assertThat(thumbnails).containsOnlyKeys(48, 96, 256);
+        for (var entry : thumbnails.entrySet()) {
+            BufferedImage image = read(entry.getValue());
+            assertThat(image.getWidth()).isEqualTo(entry.getKey());
+            assertThat(image.getHeight()).isEqualTo(entry.getKey());
+        }
+    }
+
+    @Test
+    void createThumbnails_SmallImage_IsNotUpscaled() throws IOException {
+        // When
+        Map<Integer, byte[]> thumbnails = photoThumbnailer.createThumbnails(png(64, 80), List.of(48, 96));
+
+        // Then
+        assertThat(read(thumbnails.get(48)).getWidth()).isEqualTo(48);
+        assertThat(read(thumbnails.get(96)).getWidth()).isEqualTo(64);
+    }
+
+    @Test
+    void createThumbnails_WithNonImage_ThrowsValidationException() {
+        // When & Then
+        assertThatThrownBy(() -> photoThumbnailer.createThumbnails(new byte[]{1, 2, 3}, List.of(48)))
+                .isInstanceOf(ValidationException.class);
+    }
+}
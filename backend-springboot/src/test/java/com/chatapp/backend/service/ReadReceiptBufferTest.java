@@ -0,0 +1,99 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.repository.ReadWatermarkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadReceiptBufferTest {
+
+    private static final Map<String, Long> USER_IDS = Map.of("alice", 1L, "bob", 2L, "carol", 3L);
+
+    @Mock
+    private ReadWatermarkRepository watermarkRepository;
+
+    @Mock
+    private InboxService inboxService;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ReadReceiptBuffer readReceiptBuffer;
+
+    @BeforeEach
+    void setUp() {
+        readReceiptBuffer.init();
+        when(userDirectory.requireId(anyString())).thenAnswer(i -> USER_IDS.get(i.<String>getArgument(0)));
+    }
+
+    @Test
+    void flush_RepeatedReads_OneUpdatePerConversation() {
+        // Given - alice refreshes the same conversation three times
+        readReceiptBuffer.record("alice", "bob", 10);
+        readReceiptBuffer.record("alice", "bob", 12);
+        readReceiptBuffer.record("alice", "bob", 11);
+        readReceiptBuffer.record("carol", "bob", 5);
+
+        // When
+        readReceiptBuffer.flush();
+
+        // Then
+        verify(watermarkRepository).advance(1L, 2L, 12);
+        verify(watermarkRepository).advance(3L, 2L, 5);
+        verify(watermarkRepository, times(2)).advance(anyLong(), anyLong(), anyInt());
+        verify(inboxService).markRead(1L, 2L, 12);
+        assertThat(meterRegistry.counter("chat.read_receipts.coalesced").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("chat.read_receipts.flushed").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void flush_WhenUpdateFails_KeepsReceiptForNextFlush() {
+        // Given
+        readReceiptBuffer.record("alice", "bob", 10);
+        when(watermarkRepository.advance(1L, 2L, 10))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        // When
+        readReceiptBuffer.flush();
+        readReceiptBuffer.flush();
+
+        // Then
+        verify(watermarkRepository, times(2)).advance(1L, 2L, 10);
+        assertThat(meterRegistry.counter("chat.read_receipts.flushed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void flush_FirstReadOfConversation_UpsertsWithoutLookup() {
+        // Given
+        readReceiptBuffer.record("alice", "bob", 7);
+
+        // When
+        readReceiptBuffer.flush();
+
+        // Then - one upsert, no exists-then-insert
+        verify(watermarkRepository).advance(1L, 2L, 7);
+        verifyNoMoreInteractions(watermarkRepository);
+    }
+}
@@ -0,0 +1,80 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserSearchIndex userSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findAllUsernames())
+                .thenReturn(List.of("alice", "bob", "alina", "malik", "carol", "kalinka"));
+        userSearchIndex.load();
+    }
+
+    @Test
+    void refresh_AddsUsersRegisteredElsewhere() {
+        // Given - "alfred" registered on another instance
+        when(userRepository.findAllUsernames())
+                .thenReturn(List.of("alice", "alfred", "bob", "alina", "malik", "carol", "kalinka"));
+
+        // When
+        userSearchIndex.refresh();
+
+        // Then
+        assertThat(userSearchIndex.search("al", 20)).containsExactly("alfred", "alice", "alina", "kalinka", "malik");
+        assertThat(userSearchIndex.search("fred", 20)).containsExactly("alfred");
+    }
+
+    @Test
+    void search_ReturnsPrefixMatchesBeforeOtherMatches() {
+        // When
+        List<String> result = userSearchIndex.search("ali", 20);
+
+        // Then
+        assertThat(result).containsExactly("alice", "alina", "kalinka", "malik");
+    }
+
+    @Test
+    void search_WithLongTerm_MatchesSubstringsOnly() {
+        // When & Then
+        assertThat(userSearchIndex.search("alin", 20)).containsExactly("alina", "kalinka");
+        assertThat(userSearchIndex.search("alix", 20)).isEmpty();
+    }
+
+    @Test
+    void search_RespectsLimit() {
+        // When
+        List<String> result = userSearchIndex.search("a", 2);
+
+        // Then
+        assertThat(result).containsExactly("alice", "alina");
+    }
+
+    @Test
+    void add_NewUser_IsSearchableWithoutReload() {
+        // When
+        userSearchIndex.add("dalia");
+
+        // Then
+        assertThat(userSearchIndex.search("ali", 20)).contains("dalia");
+        verify(userRepository, times(1)).findAllUsernames();
+    }
+}
@@ -0,0 +1,252 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.dto.response.ApiResponse;
+import com.chatapp.backend.dto.response.PhotoBatchEntry;
+import com.chatapp.backend.dto.response.PhotoResponse;
+import com.chatapp.backend.exception.ResourceNotFoundException;
+import com.chatapp.backend.exception.ValidationException;
+import com.chatapp.backend.model.UserPhoto;
+import com.chatapp.backend.model.UserPhotoVariant;
+import com.chatapp.backend.repository.UserPhotoRepository;
+import com.chatapp.backend.repository.UserPhotoVariantRepository;
+import com.chatapp.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserPhotoRepository userPhotoRepository;
+
+    @Mock
+    private UserPhotoVariantRepository variantRepository;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @Mock
+    private PhotoThumbnailer photoThumbnailer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private UserService userService;
+
+    @Test
+    void getProfilePhoto_WithPhoto_ReturnsBytesWithoutLoadingUser() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userPhotoRepository.findById(1L))
+                .thenReturn(Optional.of(new UserPhoto(1L, new byte[]{1, 2, 3})));
+
+        // When
+        ApiResponse<PhotoResponse> response = userService.getProfilePhoto("alice", null);
+
+        // Then
+        assertThat(response.data().data()).containsExactly(1, 2, 3);
+        assertThat(response.data().etag()).isEqualTo("\"" + UserPhoto.contentHash(new byte[]{1, 2, 3}) + "\"");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getProfilePhoto_WithoutPhoto_ReturnsEmpty() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userPhotoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When
+        ApiResponse<PhotoResponse> response = userService.getProfilePhoto("alice", null);
+
+        // Then
+        assertThat(response.data().data()).isEmpty();
+    }
+
+    @Test
+    void getProfilePhoto_WithUnknownUser_ThrowsResourceNotFoundException() {
+        // Given
+        when(userDirectory.requireId("ghost")).thenThrow(new ResourceNotFoundException("User not found"));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.getProfilePhoto("ghost", null))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(userPhotoRepository);
+    }
+
+    @Test
+    void getProfilePhotoVersion_ReadsProjectionOnly() {
+        // Given
+        UserPhotoRepository.PhotoVersion version = mock(UserPhotoRepository.PhotoVersion.class);
+        when(version.getContentHash()).thenReturn("abc");
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(userPhotoRepository.findVersionByUserId(1L)).thenReturn(Optional.of(version));
+
+        // When
+        ApiResponse<PhotoResponse> response = userService.getProfilePhotoVersion("alice", null);
+
+        // Then
+        assertThat(response.data().etag()).isEqualTo("\"abc\"");
+        assertThat(response.data().data()).isNull();
+        verify(userPhotoRepository, never()).findById(any());
+    }
+
+    @Test
+    void getProfilePhoto_WithSize_ServesCoveringThumbnail() {
+        // Given - 60 px requested, 96 px is the smallest thumbnail that covers it
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(variantRepository.findByUserIdAndSize(1L, 96))
+                .thenReturn(Optional.of(new UserPhotoVariant(1L, 96, new byte[]{7})));
+
+        // When
+        ApiResponse<PhotoResponse> response = userService.getProfilePhoto("alice", 60);
+
+        // Then
+        assertThat(response.data().data()).containsExactly(7);
+        verify(userPhotoRepository, never()).findById(any());
+    }
+
+    @Test
+    void getProfilePhoto_WithSizeButNoThumbnails_FallsBackToOriginal() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(variantRepository.findByUserIdAndSize(1L, 48)).thenReturn(Optional.empty());
+        when(userPhotoRepository.findById(1L))
+                .thenReturn(Optional.of(new UserPhoto(1L, new byte[]{1})));
+
+        // When
+        ApiResponse<PhotoResponse> response = userService.getProfilePhoto("alice", 48);
+
+        // Then
+        assertThat(response.data().data()).containsExactly(1);
+    }
+
+    @Test
+    void getProfilePhotos_ReturnsOnlyChangedPhotos() {
+        // Given - client is up to date for alice, has an old bob and nothing for carol (no photo)
+        UserPhotoVariant bob = new UserPhotoVariant(2L, 48, new byte[]{5});
+        Map<String, String> known = new HashMap<>();
+        known.put("alice", "\"a1\"");
+        known.put("bob", "\"old\"");
+        known.put("carol", null);
+        List<UserPhotoRepository.UserPhotoVersion> versions =
+                List.of(version(1L, "alice", "a1"), version(2L, "bob", bob.getContentHash()));
+        when(variantRepository.findVersionsByUsernameInAndSize(any(), eq(48))).thenReturn(versions);
+        when(userPhotoRepository.findVersionsByUsernameIn(any())).thenReturn(List.of());
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("carol"));
+        when(variantRepository.findByUserIdInAndSize(eq(Set.of(2L)), eq(48))).thenReturn(List.of(bob));
+
+        // When
+        List<PhotoBatchEntry> photos = userService.getProfilePhotos(known, 48).data();
+
+        // Then
+        assertThat(photos).extracting(PhotoBatchEntry::username).containsExactlyInAnyOrder("bob", "carol");
+        assertThat(photos).filteredOn(p -> p.username().equals("bob"))
+                .singleElement().satisfies(p -> assertThat(p.data()).containsExactly(5));
+        verify(userPhotoRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getProfilePhotos_AllUpToDate_LoadsNoImages() {
+        // Given
+        List<UserPhotoRepository.UserPhotoVersion> versions = List.of(version(1L, "alice", "a1"));
+        when(variantRepository.findVersionsByUsernameInAndSize(any(), eq(96))).thenReturn(versions);
+
+        // When
+        List<PhotoBatchEntry> photos = userService.getProfilePhotos(Map.of("alice", "\"a1\""), 96).data();
+
+        // Then
+        assertThat(photos).isEmpty();
+        verify(variantRepository, never()).findByUserIdInAndSize(any(), any());
+    }
+
+    @Test
+    void getProfilePhotos_WithEmptyBatch_ThrowsValidationException() {
+        // When & Then
+        assertThatThrownBy(() -> userService.getProfilePhotos(Map.of(), 48))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void updateProfilePhoto_FirstPhoto_SavesOriginalAndThumbnails() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(photoThumbnailer.createThumbnails(any(), eq(UserPhotoVariant.SIZES)))
+                .thenReturn(Map.of(48, new byte[]{4}, 96, new byte[]{9}, 256, new byte[]{2}));
+        when(userPhotoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When
+        userService.updateProfilePhoto("alice", new byte[]{9});
+
+        // Then
+        verify(userPhotoRepository).save(any(UserPhoto.class));
+        verify(variantRepository).deleteByUserId(1L);
+        verify(variantRepository).saveAll(argThat(variants -> ((List<?>) variants).size() == 3));
+    }
+
+    @Test
+    void updateProfilePhoto_WithUnreadableImage_ThrowsValidationException() {
+        // Given
+        when(userDirectory.requireId("alice")).thenReturn(1L);
+        when(photoThumbnailer.createThumbnails(any(), any()))
+                .thenThrow(new ValidationException("Unsupported image format"));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.updateProfilePhoto("alice", new byte[]{9}))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(userPhotoRepository);
+    }
+
+    @Test
+    void createMissingThumbnails_ConvertsInBatchesAndMarksUnreadableOriginals() {
+        // Given
+        UserPhoto readable = new UserPhoto(1L, new byte[]{1});
+        UserPhoto unreadable = new UserPhoto(2L, new byte[]{2});
+        when(userPhotoRepository.lockWithoutVariants(any(Limit.class)))
+                .thenReturn(List.of(readable, unreadable), List.of());
+        when(photoThumbnailer.createThumbnails(readable.getData(), UserPhotoVariant.SIZES))
+                .thenReturn(Map.of(48, new byte[]{4}));
+        when(photoThumbnailer.createThumbnails(unreadable.getData(), UserPhotoVariant.SIZES))
+                .thenThrow(new ValidationException("Unreadable image"));
+
+        // When
+        userService.createMissingThumbnails();
+
+        // Then
+        verify(variantRepository).deleteByUserId(1L);
+        verify(variantRepository, never()).deleteByUserId(2L);
+        assertThat(readable.getThumbnailsFailedAt()).isNull();
+        assertThat(unreadable.getThumbnailsFailedAt()).isNotNull();
+        verify(userPhotoRepository, times(2)).lockWithoutVariants(any(Limit.class));
+    }
+
+    private static UserPhotoRepository.UserPhotoVersion version(Long userId, String username, String contentHash) {
+        UserPhotoRepository.UserPhotoVersion version = mock(UserPhotoRepository.UserPhotoVersion.class);
+        when(version.getUserId()).thenReturn(userId);
+        when(version.getUsername()).thenReturn(username);
+        when(version.getContentHash()).thenReturn(contentHash);
+        return version;
+    }
+}
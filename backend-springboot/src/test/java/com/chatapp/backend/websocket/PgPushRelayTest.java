@@ -0,0 +1,104 @@
+package com.chatapp.backend.websocket;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.model.Message;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.service.UserDirectory;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PgPushRelayTest {
+
+    @Mock
+    private MessagePushHandler pushHandler;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @InjectMocks
+    private PgPushRelay relay;
+
+    private EmbeddedPostgres postgres;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(relay, "dataSource", dataSource);
+        ReflectionTestUtils.setField(relay, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(relay, "jsonMapper", JsonMapper.builder().build());
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        relay.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        relay.stop();
+        postgres.close();
+    }
+
+    @Test
+    void onMessageSent_AfterCommit_PushesToConnectedReceivers() {
+        // Given - bob is connected to this instance, carol to another one
+        Message message = new Message(1, 1L, 2L, "hi");
+        message.assignId(42);
+        when(pushHandler.isConnected("bob")).thenReturn(true);
+        when(pushHandler.isConnected("carol")).thenReturn(false);
+        when(messageRepository.findAllById(Set.of(42))).thenReturn(List.of(message));
+        when(userDirectory.usernameOf(1L)).thenReturn("alice");
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            relay.onMessageSent(new MessageSentEvent("bob", new MessageResponse(42, "alice", "hi")));
+            relay.onMessageSent(new MessageSentEvent("carol", new MessageResponse(43, "alice", "hey")));
+        });
+
+        // Then - one notification, loaded once, pushed with its content
+        verify(pushHandler, timeout(5000)).push("bob", new MessageResponse(42, "alice", "hi"));
+        verify(messageRepository).findAllById(Set.of(42));
+        verify(pushHandler, never()).push(eq("carol"), any());
+    }
+
+    @Test
+    void onMessageSent_RolledBack_SendsNothing() {
+        // Given
+        when(pushHandler.isConnected(anyString())).thenReturn(true);
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            relay.onMessageSent(new MessageSentEvent("bob", new MessageResponse(42, "alice", "hi")));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                relay.onMessageSent(new MessageSentEvent("bob", new MessageResponse(43, "alice", "hey"))));
+
+        // Then - only the committed message arrives
+        verify(messageRepository, timeout(5000)).findAllById(Set.of(43));
+        verify(messageRepository, never()).findAllById(Set.of(42));
+    }
+}
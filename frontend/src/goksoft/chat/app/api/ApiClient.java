@@ -6,6 +6,7 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
@@ -51,6 +52,38 @@ public class ApiClient {
                 .thenApply(HttpResponse::body);
     }
 
+    // GET binary content; a known ETag is sent as If-None-Match so unchanged resources come back as 304
+    public CompletableFuture<HttpResponse<byte[]>> getBytes(String endpoint, String etag) {
+        HttpRequest.Builder builder = buildRequest(endpoint).GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+
+        return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    // POST JSON, binary response (e.g. the photo batch)
+    public CompletableFuture<HttpResponse<byte[]>> postForBytes(String endpoint, String jsonBody) {
+        HttpRequest request = buildRequest(endpoint)
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .header("Content-Type", "application/json")
+                .build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    // Open a WebSocket to the given absolute URL, authenticated with the JWT token
+    public CompletableFuture<WebSocket> openWebSocket(String url, WebSocket.Listener listener) {
+        WebSocket.Builder builder = client.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(Environment.CONNECT_TIMEOUT_SECONDS));
+
+        if (hasToken()) {
+            builder.header("Authorization", "Bearer " + jwtToken);
+        }
+
+        return builder.buildAsync(URI.create(url), listener);
+    }
+
     // Build request with JWT token if available
     private HttpRequest.Builder buildRequest(String endpoint) {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
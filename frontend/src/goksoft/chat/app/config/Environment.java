@@ -1,5 +1,7 @@
 package goksoft.chat.app.config;
 
+import java.nio.file.Path;
+
 /**
  * Environment configuration for dev/prod separation.
  *
@@ -64,6 +66,14 @@ public class Environment {
         return baseUrl;
     }
 
+    /**
+     * Get the WebSocket URL for server push (http → ws, https → wss)
+     * @return WebSocket URL of the message push endpoint
+     */
+    public static String getWebSocketUrl() {
+        return getServerUrl().replaceFirst("^http", "ws") + "/ws/messages";
+    }
+
     // ===== TIMEOUTS =====
 
     public static final int CONNECT_TIMEOUT_SECONDS = 10;
@@ -74,6 +84,29 @@ public class Environment {
     public static final int MESSAGE_POLL_INTERVAL_MS = 2000;      // 2 seconds
     public static final int FRIEND_REQUEST_POLL_INTERVAL_MS = 20000; // 20 seconds
 
+    // ===== SERVER PUSH =====
+
+    public static final int PUSH_RECONNECT_DELAY_MS = 5000;       // 5 seconds
+
+    // ===== PROFILE PHOTO CACHE =====
+
+    // Display sizes are the circle diameter at 2x, so photos stay sharp on HiDPI screens
+    public static final int AVATAR_SIZE_PX = 84;                  // friend/request/search lists, chat header
+    public static final int PROFILE_PHOTO_SIZE_PX = 220;          // own profile circle
+    public static final int AVATAR_MEMORY_CACHE_SIZE = 256;       // decoded images kept in memory
+    public static final long AVATAR_REVALIDATE_INTERVAL_MS = 300000; // 5 minutes
+    public static final long AVATAR_DISK_CACHE_MAX_BYTES = 50L * 1024 * 1024; // 50 MB
+    public static final long AVATAR_DISK_CACHE_MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000; // 30 days unused
+    public static final int PHOTO_LOADER_THREADS = 4;
+
+    /**
+     * Get the directory for cached profile photos (separate per environment)
+     * @return ~/.goksoft-chat/avatars/<environment>
+     */
+    public static Path getAvatarCacheDir() {
+        return Path.of(System.getProperty("user.home"), ".goksoft-chat", "avatars", getEnvironmentName());
+    }
+
     // ===== ENVIRONMENT INFO =====
 
     /**
@@ -94,6 +127,7 @@ public class Environment {
         System.out.println("Environment: " + getEnvironmentName());
         System.out.println("Base URL: " + getBaseUrl());
         System.out.println("Server URL: " + getServerUrl());
+        System.out.println("WebSocket URL: " + getWebSocketUrl());
         System.out.println("Connect Timeout: " + CONNECT_TIMEOUT_SECONDS + "s");
         System.out.println("Request Timeout: " + REQUEST_TIMEOUT_SECONDS + "s");
         System.out.println("========================================");
@@ -3,6 +3,7 @@ package goksoft.chat.app.controller.main;
 import goksoft.chat.app.config.Environment;
 import goksoft.chat.app.controller.dialog.WarningWindowController;
 import goksoft.chat.app.controller.auth.LoginController;
+import goksoft.chat.app.model.dto.Message;
 import goksoft.chat.app.service.ServiceManager;
 import goksoft.chat.app.ui.components.FriendBoxComponent;
 import goksoft.chat.app.ui.components.ProfilePhotoLoader;
@@ -19,7 +20,6 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
@@ -27,7 +27,6 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Circle;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -39,6 +38,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.prefs.Preferences;
@@ -81,12 +81,15 @@ public class MainPanelController {
     private ArrayList<String> friendsNameList = new ArrayList<>();
     private ArrayList<String> friendRequestsNameList = new ArrayList<>();
     private List<Object> friendArray = new ArrayList<>();
-    private int currentTimer;
+
+    // Incremental message sync state for the open chat
+    private static final int INITIAL_MESSAGE_PAGE_SIZE = 50;
+    private Integer lastMessageId;
+    private int pendingSentCount;
 
     // Modern services
     private final ServiceManager serviceManager = ServiceManager.getInstance();
     private ScheduledExecutorService scheduler;
-    private ScheduledExecutorService messagePollingScheduler;
 
     @FXML
     public void initialize() {
@@ -112,6 +115,9 @@ public class MainPanelController {
         startFriendStatsPolling();
         startFriendRequestsPolling();
 
+        // New messages arrive over the push channel instead of polling
+        startMessagePush();
+
         // Setup cleanup on window close
         setupWindowCloseHandler();
 
@@ -162,6 +168,7 @@ public class MainPanelController {
 
         serviceManager.getFriendService().getFriendsWithDetails()
                 .thenAccept(friendsList -> {
+                    prefetchFriendPhotos(friendsList);
                     Platform.runLater(() -> {
                         for (List<String> friendData : friendsList) {
                             if (friendData.size() >= 4) {
@@ -173,12 +180,10 @@ public class MainPanelController {
                                 // Create friend box with callback
                                 // We need to capture these as final for the lambda
                                 final String finalUsername = username;
-                                Image photo = ProfilePhotoLoader.loadPhoto(username);
 
                                 BorderPane friendBox = FriendBoxComponent.create(
-                                        username, lastMsg, notifCount, passedTime, photo,
+                                        username, lastMsg, notifCount, passedTime,
                                         () -> {
-                                            Image friendPhoto = ProfilePhotoLoader.loadPhoto(finalUsername);
                                             // Find the actual pane after it's added to UI
                                             BorderPane actualPane = null;
                                             for (int k = 0; k < friendsVBox.getChildren().size(); k++) {
@@ -188,7 +193,7 @@ public class MainPanelController {
                                                     break;
                                                 }
                                             }
-                                            onFriendClicked(photo, finalUsername, actualPane);
+                                            onFriendClicked(finalUsername, actualPane);
                                         }
                                 );
 
@@ -214,15 +219,15 @@ public class MainPanelController {
     private void loadFriendRequests() {
         serviceManager.getFriendService().getFriendRequests()
                 .thenAccept(requests -> {
+                    ProfilePhotoLoader.prefetch(requests, Environment.AVATAR_SIZE_PX);
                     Platform.runLater(() -> {
                         notificationVBox.getChildren().clear();
                         friendRequestsNameList.clear();
 
                         for (String username : requests) {
                             // Create request box with modern callbacks
-                            Image photo = ProfilePhotoLoader.loadPhoto(username);
                             BorderPane requestBox = RequestBoxComponent.create(
-                                    username, photo,
+                                    username,
                                     event -> acceptFriendRequest(username),
                                     event -> rejectFriendRequest(username)
                             );
@@ -318,53 +323,95 @@ public class MainPanelController {
     /**
      * Handle clicking on a friend to start chatting
      */
-    public void onFriendClicked(Image friendPhoto, String friendName, BorderPane pane) {
+    public void onFriendClicked(String friendName, BorderPane pane) {
         chatFriendName.setText(friendName);
-        chatFriendProfilePhoto.setFill(new ImagePattern(friendPhoto));
+        ProfilePhotoLoader.fillAsync(chatFriendProfilePhoto, friendName, Environment.AVATAR_SIZE_PX, Color.BLACK);
         chatFriendProfilePhoto.setStrokeWidth(0);
         chatBorderPane.setVisible(true);
         settingsBorderPane.setVisible(false);
         currentFriend = friendName;
         currentPane = pane;
 
-        // Load messages for this friend
+        // Load messages for this friend (new ones arrive via push)
         loadMessages();
-
-        // Start polling for new messages
-        startMessagePollingForCurrentFriend();
     }
 
     /**
-     * Load messages with current friend
+     * Load the latest page of messages with current friend
      */
     private void loadMessages() {
         if (currentFriend == null) return;
 
-        serviceManager.getMessageService().getMessages(currentFriend)
-                .thenAccept(messages -> {
+        final String friend = currentFriend;
+        serviceManager.getMessageService().getLatestMessages(friend, INITIAL_MESSAGE_PAGE_SIZE)
+                .thenAccept(page -> {
                     Platform.runLater(() -> {
+                        if (!friend.equals(currentFriend)) return;
+
                         listView.getItems().clear();
+                        lastMessageId = null;
+                        pendingSentCount = 0;
+                        appendMessages(page.getMessages());
+                    });
+                })
+                .exceptionally(ex -> {
+                    logger.error("Error loading messages", ex);
+                    return null;
+                });
+    }
 
-                        for (List<String> msgData : messages) {
-                            if (msgData.size() >= 2) {
-                                String sender = msgData.get(0);
-                                String message = msgData.get(1);
-                                listView.getItems().add(sender + ": " + message);
-                            }
-                        }
+    /**
+     * Fetch only messages newer than the last one shown and append them
+     */
+    private void syncNewMessages() {
+        if (currentFriend == null) return;
+        if (lastMessageId == null) {
+            loadMessages();
+            return;
+        }
 
-                        // Scroll to bottom
-                        if (!listView.getItems().isEmpty()) {
-                            listView.scrollTo(listView.getItems().size() - 1);
+        final String friend = currentFriend;
+        serviceManager.getMessageService().getMessagesSince(friend, lastMessageId)
+                .thenAccept(messages -> {
+                    Platform.runLater(() -> {
+                        if (friend.equals(currentFriend)) {
+                            appendMessages(messages);
                         }
                     });
                 })
                 .exceptionally(ex -> {
-                    logger.error("Error loading messages", ex);
+                    logger.error("Error syncing messages", ex);
                     return null;
                 });
     }
 
+    /**
+     * Append messages to the chat and advance the sync position.
+     * Own messages already shown optimistically are skipped.
+     */
+    private void appendMessages(List<Message> messages) {
+        String loggedUser = serviceManager.getCurrentUser();
+
+        for (Message msg : messages) {
+            if (msg.getId() != null && lastMessageId != null && msg.getId() <= lastMessageId) {
+                continue;
+            }
+            if (msg.getId() != null) {
+                lastMessageId = msg.getId();
+            }
+            if (msg.getSender().equals(loggedUser) && pendingSentCount > 0) {
+                pendingSentCount--;
+                continue;
+            }
+            listView.getItems().add(msg.getSender() + ": " + msg.getContent());
+        }
+
+        // Scroll to bottom
+        if (!listView.getItems().isEmpty()) {
+            listView.scrollTo(listView.getItems().size() - 1);
+        }
+    }
+
     /**
      * Send a message to current friend
      */
@@ -378,6 +425,7 @@ public class MainPanelController {
 
         // Add message to UI immediately (optimistic update)
         listView.getItems().add(loggedUser + ": " + message);
+        pendingSentCount++;
         messageField.clear();
 
         // Send to server
@@ -385,13 +433,15 @@ public class MainPanelController {
                 .thenAccept(response -> {
                     if (!response.isSuccess()) {
                         logger.warn("Message send reported failure: {}", response.getMessage());
+                        Platform.runLater(() -> pendingSentCount = Math.max(0, pendingSentCount - 1));
                     }
                 })
                 .exceptionally(ex -> {
                     logger.error("Error sending message", ex);
-                    Platform.runLater(() ->
-                            WarningWindowController.warningMessage("Failed to send message")
-                    );
+                    Platform.runLater(() -> {
+                        pendingSentCount = Math.max(0, pendingSentCount - 1);
+                        WarningWindowController.warningMessage("Failed to send message");
+                    });
                     return null;
                 });
 
@@ -399,35 +449,48 @@ public class MainPanelController {
     }
 
     /**
-     * Start polling for new messages with current friend
+     * Connect to the server push channel for new messages.
+     * Pushes are not replayed, so every (re)connect catches up on what was sent while disconnected.
      */
-    private void startMessagePollingForCurrentFriend() {
-        // Stop previous polling if exists
-        if (messagePollingScheduler != null && !messagePollingScheduler.isShutdown()) {
-            messagePollingScheduler.shutdown();
-        }
+    private void startMessagePush() {
+        serviceManager.getMessageService()
+                .connectPush(this::onMessagePushed, this::schedulePushReconnect)
+                .thenAccept(socket -> {
+                    refreshInbox();
+                    Platform.runLater(this::syncNewMessages);
+                })
+                .exceptionally(ex -> {
+                    logger.warn("Could not connect push channel: {}", ex.getMessage());
+                    schedulePushReconnect();
+                    return null;
+                });
+    }
 
-        currentTimer = (int) (Math.random() * 1000);
-        final int timerSnapshot = currentTimer;
+    /**
+     * Retry the push connection after a delay (unless the panel is closing)
+     */
+    private void schedulePushReconnect() {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::startMessagePush,
+                    Environment.PUSH_RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Push reconnect skipped, scheduler is shut down");
+        }
+    }
 
-        messagePollingScheduler = Executors.newSingleThreadScheduledExecutor();
-        messagePollingScheduler.scheduleAtFixedRate(() -> {
-            // Stop if we switched friends
-            if (timerSnapshot != currentTimer || currentFriend == null) {
-                return;
+    /**
+     * Handle a message pushed by the server
+     */
+    private void onMessagePushed(Message message) {
+        Platform.runLater(() -> {
+            // Append the delta to the open chat; other conversations update via friend stats
+            if (message.getSender() != null && message.getSender().equals(currentFriend)) {
+                syncNewMessages();
             }
-
-            serviceManager.getMessageService().checkNotification(currentFriend)
-                    .thenAccept(count -> {
-                        if (count > 0) {
-                            Platform.runLater(this::loadMessages);
-                        }
-                    })
-                    .exceptionally(ex -> {
-                        logger.error("Error checking notifications", ex);
-                        return null;
-                    });
-        }, 1, 2, TimeUnit.SECONDS);
+        });
     }
 
     // ===== USER SEARCH =====
@@ -446,14 +509,14 @@ public class MainPanelController {
 
         serviceManager.getUserService().searchUsers(searchTerm)
                 .thenAccept(users -> {
+                    ProfilePhotoLoader.prefetch(users, Environment.AVATAR_SIZE_PX);
                     Platform.runLater(() -> {
                         usersVBox.getChildren().clear();
 
                         for (String username : users) {
                             // Create user box with modern callback
-                            Image photo = ProfilePhotoLoader.loadPhoto(username);
                             HBox userBox = UserBoxComponent.create(
-                                    username, photo,
+                                    username,
                                     event2 -> sendFriendRequest(username)
                             );
                             usersVBox.getChildren().add(0, userBox);
@@ -498,21 +561,15 @@ public class MainPanelController {
      * Load and display profile photo
      */
     private void loadProfilePhoto(boolean showBlackOverlay) {
-        Image image = ProfilePhotoLoader.loadPhoto(serviceManager.getCurrentUser());
-
-        Platform.runLater(() -> {
-            if (image == null || image.isError()) {
-                profilePhoto.setFill(Color.DODGERBLUE);
-            } else {
-                profilePhoto.setFill(new ImagePattern(image));
-                settingsButton.setFill(new ImagePattern(image));
-            }
+        if (showBlackOverlay) {
+            profilePhoto.setFill(Color.BLACK);
+            Tooltip.install(profilePhoto, new Tooltip("Change Profile Photo"));
+            return;
+        }
 
-            if (showBlackOverlay) {
-                profilePhoto.setFill(Color.BLACK);
-                Tooltip.install(profilePhoto, new Tooltip("Change Profile Photo"));
-            }
-        });
+        String currentUser = serviceManager.getCurrentUser();
+        ProfilePhotoLoader.fillAsync(profilePhoto, currentUser, Environment.PROFILE_PHOTO_SIZE_PX, Color.DODGERBLUE);
+        ProfilePhotoLoader.fillAsync(settingsButton, currentUser, Environment.AVATAR_SIZE_PX, null);
     }
 
     public void changeProfilePhoto(MouseEvent event) {
@@ -551,20 +608,46 @@ public class MainPanelController {
     private void startFriendStatsPolling() {
         scheduler.scheduleAtFixedRate(() -> {
             try {
-                serviceManager.getFriendService().getFriendsWithDetails()
-                        .thenAccept(friendsList -> {
-                            Platform.runLater(() -> updateFriendsUI(friendsList));
-                        })
-                        .exceptionally(ex -> {
-                            logger.error("Error polling friend stats", ex);
-                            return null;
-                        });
+                refreshInbox();
             } catch (Exception e) {
                 logger.error("Unexpected error in friend stats polling", e);
             }
         }, 0, Environment.MESSAGE_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Reload the friend rows (last message, unread count) and the mailbox badge
+     */
+    private void refreshInbox() {
+        // The inbox carries each friend's unread count, so it also feeds the mailbox badge
+        serviceManager.getFriendService().getFriendsWithDetails()
+                .thenAccept(friendsList -> {
+                    prefetchFriendPhotos(friendsList);
+                    int totalUnread = totalUnread(friendsList);
+                    Platform.runLater(() -> {
+                        updateFriendsUI(friendsList);
+                        mailboxButton.setText(totalUnread > 0 ? "Mailbox (" + totalUnread + ")" : "Mailbox");
+                    });
+                })
+                .exceptionally(ex -> {
+                    logger.error("Error polling friend stats", ex);
+                    return null;
+                });
+    }
+
+    /**
+     * Sum of the unread count column of the friend rows
+     */
+    private int totalUnread(List<List<String>> friendsList) {
+        int total = 0;
+        for (List<String> friendData : friendsList) {
+            if (friendData.size() >= 2) {
+                total += Integer.parseInt(friendData.get(1));
+            }
+        }
+        return total;
+    }
+
     /**
      * Polls friend requests from the server and updates UI
      */
@@ -585,6 +668,17 @@ public class MainPanelController {
         }, 0, Environment.FRIEND_REQUEST_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Loads all friends' photos with one batch request (fresh cached ones are skipped)
+     */
+    private void prefetchFriendPhotos(List<List<String>> friendsList) {
+        List<String> usernames = friendsList.stream()
+                .filter(friendData -> !friendData.isEmpty())
+                .map(friendData -> friendData.get(0))
+                .toList();
+        ProfilePhotoLoader.prefetch(usernames, Environment.AVATAR_SIZE_PX);
+    }
+
     /**
      * Updates the friends list UI with latest data
      */
@@ -597,12 +691,10 @@ public class MainPanelController {
                 String notifCount = friendData.get(1);
                 String lastMsg = friendData.get(2);
                 String passedTime = friendData.get(3);
-                Image photo = ProfilePhotoLoader.loadPhoto(username);
                 // Create new friend box with callback
                 BorderPane friendBox = FriendBoxComponent.create(
-                        username, lastMsg, notifCount, passedTime, photo,
+                        username, lastMsg, notifCount, passedTime,
                         () -> {
-                            Image friendPhoto = ProfilePhotoLoader.loadPhoto(username);
                             // Find the actual friendBox pane to pass
                             BorderPane actualPane = null;
                             for (int k = 0; k < friendsVBox.getChildren().size(); k++) {
@@ -612,7 +704,7 @@ public class MainPanelController {
                                     break;
                                 }
                             }
-                            onFriendClicked(photo, username, actualPane);
+                            onFriendClicked(username, actualPane);
                         }
                 );
 
@@ -644,9 +736,8 @@ public class MainPanelController {
     private void updateFriendRequestsUI(List<String> requests) {
         for (String username : requests) {
             if (!friendRequestsNameList.contains(username)) {
-                Image photo = ProfilePhotoLoader.loadPhoto(username);
                 BorderPane requestBox = RequestBoxComponent.create(
-                        username, photo,
+                        username,
                         event -> acceptFriendRequest(username),
                         event -> rejectFriendRequest(username)
                 );
@@ -747,6 +838,7 @@ public class MainPanelController {
      * Cleanup method to properly shutdown scheduled tasks
      */
     public void cleanup() {
+        serviceManager.getMessageService().disconnectPush();
 
         if (scheduler != null && !scheduler.isShutdown()) {
             scheduler.shutdown();
@@ -761,19 +853,5 @@ public class MainPanelController {
                 logger.warn("Main scheduler shutdown interrupted", e);
             }
         }
-
-        if (messagePollingScheduler != null && !messagePollingScheduler.isShutdown()) {
-            messagePollingScheduler.shutdown();
-            try {
-                if (!messagePollingScheduler.awaitTermination(2, TimeUnit.SECONDS)) {
-                    messagePollingScheduler.shutdownNow();
-                }
-                logger.info("Message polling scheduler shut down successfully");
-            } catch (InterruptedException e) {
-                messagePollingScheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-                logger.warn("Message polling scheduler shutdown interrupted", e);
-            }
-        }
     }
 }
\ No newline at end of file
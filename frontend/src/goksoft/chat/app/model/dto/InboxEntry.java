@@ -0,0 +1,45 @@
+package goksoft.chat.app.model.dto;
+
+/**
+ * One conversation in the inbox (friend list row)
+ */
+public class InboxEntry {
+    private String username;
+    private int unreadCount;
+    private String lastMessage;
+    private String lastMessageAt;
+
+    public InboxEntry() {}
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public void setLastMessage(String lastMessage) {
+        this.lastMessage = lastMessage;
+    }
+
+    public String getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(String lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+}
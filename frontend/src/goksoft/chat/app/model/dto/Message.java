@@ -1,8 +1,13 @@
 package goksoft.chat.app.model.dto;
 
+import com.google.gson.annotations.SerializedName;
+
 public class Message {
+    private Integer id;
     private String sender;
     private String receiver;
+    // Backend MessageResponse names the text field "message"
+    @SerializedName(value = "content", alternate = {"message"})
     private String content;
     private String timestamp;
 
@@ -15,6 +20,14 @@ public class Message {
         this.timestamp = timestamp;
     }
 
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
     public String getSender() {
         return sender;
     }
@@ -50,7 +63,8 @@ public class Message {
     @Override
     public String toString() {
         return "Message{" +
-                "sender='" + sender + '\'' +
+                "id=" + id +
+                ", sender='" + sender + '\'' +
                 ", receiver='" + receiver + '\'' +
                 ", content='" + content + '\'' +
                 ", timestamp='" + timestamp + '\'' +
@@ -0,0 +1,34 @@
+package goksoft.chat.app.model.dto;
+
+import java.util.List;
+
+/**
+ * One page of conversation history, oldest message first
+ */
+public class MessagePage {
+    private List<Message> messages;
+    private String nextCursor;
+
+    public MessagePage() {}
+
+    public MessagePage(List<Message> messages, String nextCursor) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -3,16 +3,24 @@ package goksoft.chat.app.service;
 import com.google.gson.reflect.TypeToken;
 import goksoft.chat.app.api.ApiClient;
 import goksoft.chat.app.model.dto.ApiResponse;
+import goksoft.chat.app.model.dto.InboxEntry;
 import goksoft.chat.app.util.JsonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public class FriendService {
 
     private static final Logger logger = LoggerFactory.getLogger(FriendService.class);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yy");
     private final ApiClient apiClient;
 
     public FriendService(ApiClient apiClient) {
@@ -20,13 +28,25 @@ public class FriendService {
     }
 
     /**
-     * Get list of accepted friends with their last message info
-     * Backend returns: [[username, notifCount, lastMsg, passedTime], ...]
+     * Get list of conversations with their last message info, most recent first
+     * Backend inbox is mapped to rows: [[username, notifCount, lastMsg, passedTime], ...]
      */
     public CompletableFuture<List<List<String>>> getFriendsWithDetails() {
-        return apiClient.post("/friends/get", "")
+        return apiClient.post("/friends/inbox", "")
                 .thenApply(json -> {
-                    return JsonUtil.fromJson(json, new TypeToken<List<List<String>>>(){});
+                    ApiResponse<List<InboxEntry>> response =
+                            JsonUtil.fromJson(json, new TypeToken<ApiResponse<List<InboxEntry>>>(){});
+                    List<List<String>> rows = new ArrayList<>();
+                    if (response.getData() != null) {
+                        for (InboxEntry entry : response.getData()) {
+                            rows.add(List.of(
+                                    entry.getUsername(),
+                                    String.valueOf(entry.getUnreadCount()),
+                                    entry.getLastMessage() != null ? entry.getLastMessage() : "",
+                                    formatPassedTime(entry.getLastMessageAt())));
+                        }
+                    }
+                    return rows;
                 })
                 .exceptionally(ex -> {
                     logger.error("Error fetching friends", ex);
@@ -34,6 +54,21 @@ public class FriendService {
                 });
     }
 
+    // Time of day for today's activity, otherwise the date
+    private String formatPassedTime(String timestamp) {
+        if (timestamp == null) {
+            return "";
+        }
+        try {
+            LocalDateTime time = LocalDateTime.parse(timestamp);
+            return time.toLocalDate().equals(LocalDate.now())
+                    ? time.format(TIME_FORMAT)
+                    : time.format(DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return "";
+        }
+    }
+
     /**
      * Get list of friend requests
      * Backend returns: ["username1", "username2", ...]
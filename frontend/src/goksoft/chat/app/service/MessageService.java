@@ -2,35 +2,61 @@ package goksoft.chat.app.service;
 
 import com.google.gson.reflect.TypeToken;
 import goksoft.chat.app.api.ApiClient;
+import goksoft.chat.app.config.Environment;
 import goksoft.chat.app.model.dto.ApiResponse;
+import goksoft.chat.app.model.dto.Message;
+import goksoft.chat.app.model.dto.MessagePage;
 import goksoft.chat.app.util.JsonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.http.WebSocket;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 public class MessageService {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
     private final ApiClient apiClient;
+    private volatile WebSocket pushSocket;
 
     public MessageService(ApiClient apiClient) {
         this.apiClient = apiClient;
     }
 
     /**
-     * Get messages between current user and receiver
-     * Backend returns: [[sender, message], [sender, message], ...]
+     * Get the latest page of messages with receiver (oldest first).
+     * Also marks the conversation as read on the server.
      */
-    public CompletableFuture<List<List<String>>> getMessages(String receiver) {
-        String url = "/messages/get?receiver=" + receiver;
+    public CompletableFuture<MessagePage> getLatestMessages(String receiver, int limit) {
+        String url = "/messages/page?receiver=" + receiver + "&limit=" + limit;
         return apiClient.post(url, "")
                 .thenApply(json -> {
-                    return JsonUtil.fromJson(json, new TypeToken<List<List<String>>>(){});
+                    ApiResponse<MessagePage> response =
+                            JsonUtil.fromJson(json, new TypeToken<ApiResponse<MessagePage>>(){});
+                    return response.getData() != null ? response.getData() : new MessagePage(List.of(), null);
                 })
                 .exceptionally(ex -> {
                     logger.error("Error fetching messages", ex);
+                    return new MessagePage(List.of(), null);
+                });
+    }
+
+    /**
+     * Get only the messages newer than sinceId (incremental sync, oldest first)
+     */
+    public CompletableFuture<List<Message>> getMessagesSince(String receiver, int sinceId) {
+        String url = "/messages/get?receiver=" + receiver + "&sinceId=" + sinceId;
+        return apiClient.post(url, "")
+                .thenApply(json -> {
+                    ApiResponse<List<Message>> response =
+                            JsonUtil.fromJson(json, new TypeToken<ApiResponse<List<Message>>>(){});
+                    return response.getData() != null ? response.getData() : List.<Message>of();
+                })
+                .exceptionally(ex -> {
+                    logger.error("Error syncing messages", ex);
                     return List.of();
                 });
     }
@@ -68,4 +94,72 @@ public class MessageService {
                     return 0;
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Open the server push channel for new messages.
+     * Each incoming message is passed to onMessage (on the WebSocket thread);
+     * onClosed runs when the connection drops so the caller can reconnect.
+     */
+    public CompletableFuture<WebSocket> connectPush(Consumer<Message> onMessage, Runnable onClosed) {
+        disconnectPush();
+
+        WebSocket.Listener listener = new WebSocket.Listener() {
+            private final StringBuilder buffer = new StringBuilder();
+
+            @Override
+            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                buffer.append(data);
+                if (last) {
+                    String json = buffer.toString();
+                    buffer.setLength(0);
+                    try {
+                        onMessage.accept(JsonUtil.fromJson(json, Message.class));
+                    } catch (Exception e) {
+                        logger.warn("Ignoring malformed push frame: {}", json);
+                    }
+                }
+                webSocket.request(1);
+                return null;
+            }
+
+            @Override
+            public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+                logger.info("Push channel closed: {} {}", statusCode, reason);
+                notifyClosed(webSocket);
+                return null;
+            }
+
+            @Override
+            public void onError(WebSocket webSocket, Throwable error) {
+                logger.warn("Push channel error: {}", error.getMessage());
+                notifyClosed(webSocket);
+            }
+
+            // Only report drops of the current socket, not ones we closed ourselves
+            private void notifyClosed(WebSocket webSocket) {
+                if (webSocket == pushSocket) {
+                    pushSocket = null;
+                    onClosed.run();
+                }
+            }
+        };
+
+        return apiClient.openWebSocket(Environment.getWebSocketUrl(), listener)
+                .thenApply(webSocket -> {
+                    pushSocket = webSocket;
+                    logger.info("Push channel connected");
+                    return webSocket;
+                });
+    }
+
+    /**
+     * Close the push channel if open
+     */
+    public void disconnectPush() {
+        WebSocket socket = pushSocket;
+        pushSocket = null;
+        if (socket != null && !socket.isOutputClosed()) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "bye");
+        }
+    }
+}
@@ -1,15 +1,14 @@
 package goksoft.chat.app.ui.components;
 
+import goksoft.chat.app.config.Environment;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
@@ -33,13 +32,12 @@ public class FriendBoxComponent {
      * @param lastMessage Last message text
      * @param notifCount Notification count (as string)
      * @param lastDate Last message timestamp
-     * @param photo Profile photo (nullable)
      * @param onClickCallback Callback when friend box is clicked
      * @return BorderPane containing friend info
      */
     public static BorderPane create(String friendName, String lastMessage,
                                     String notifCount, String lastDate,
-                                    Image photo, Runnable onClickCallback) {
+                                    Runnable onClickCallback) {
 
         // Main container
         BorderPane borderPane = new BorderPane();
@@ -52,11 +50,7 @@ public class FriendBoxComponent {
         // Profile photo circle
         Circle profileCircle = new Circle(21);
         profileCircle.setStrokeWidth(0);
-        if (photo == null || photo.isError()) {
-            profileCircle.setFill(Color.BLACK);
-        } else {
-            profileCircle.setFill(new ImagePattern(photo));
-        }
+        ProfilePhotoLoader.fillAsync(profileCircle, friendName, Environment.AVATAR_SIZE_PX, Color.BLACK);
         BorderPane.setAlignment(profileCircle, Pos.CENTER);
         BorderPane.setMargin(profileCircle, new Insets(0, 0, 30, 10));
 
@@ -1,51 +1,501 @@
 package goksoft.chat.app.ui.components;
 
 import goksoft.chat.app.config.Environment;
-import javafx.embed.swing.SwingFXUtils;
+import goksoft.chat.app.service.ServiceManager;
+import goksoft.chat.app.util.JsonUtil;
+import javafx.application.Platform;
 import javafx.scene.image.Image;
+import javafx.scene.paint.ImagePattern;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Circle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
- * Utility class for loading user profile photos from the server
+ * Utility class for loading user profile photos from the server.
+ * Photos are cached on two levels, keyed by username and display size:
+ * - Memory: LRU of decoded images (no decode work on repeated calls)
+ * - Disk: image bytes plus ETag under the user's home (survives restarts); a changed
+ *   photo drops its other sizes, and startup prunes photos unused for a month and,
+ *   least recently validated first, whatever exceeds the size limit
+ * A cached photo is revalidated with If-None-Match at most every few minutes;
+ * in between it costs no network traffic at all.
+ * Network, disk and decoding run on a small loader pool, never on the FX thread.
+ * Concurrent requests for the same photo share one load.
+ * Lists prefetch all their photos with one batch request instead of one per user.
  */
 public class ProfilePhotoLoader {
 
     private static final Logger logger = LoggerFactory.getLogger(ProfilePhotoLoader.class);
 
+    private static final String IMAGE_SUFFIX = ".png";
+    private static final String ETAG_SUFFIX = ".etag";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Server limit of photos per batch request
+    private static final int MAX_BATCH_SIZE = 200;
+
+    // Decoded photos, least recently used evicted first
+    private static final Map<String, CachedPhoto> memoryCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedPhoto> eldest) {
+                    return size() > Environment.AVATAR_MEMORY_CACHE_SIZE;
+                }
+            });
+
+    // Loads currently running, one per cache key
+    private static final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+
+    private static final ExecutorService loaderPool = Executors.newFixedThreadPool(
+            Environment.PHOTO_LOADER_THREADS,
+            runnable -> {
+                Thread thread = new Thread(runnable, "photo-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static final Path cacheDir = Environment.getAvatarCacheDir();
+
+    // Serializes disk writes and pruning, so a photo is never deleted half-written
+    private static final Object diskLock = new Object();
+
+    static {
+        loaderPool.execute(ProfilePhotoLoader::pruneDiskCache);
+    }
+
+    // image is null for users without a photo (server ETag "none")
+    private record CachedPhoto(Image image, String etag, long validatedAt) {
+
+        boolean isFresh() {
+            return System.currentTimeMillis() - validatedAt < Environment.AVATAR_REVALIDATE_INTERVAL_MS;
+        }
+
+        CachedPhoto revalidated() {
+            return new CachedPhoto(image, etag, System.currentTimeMillis());
+        }
+    }
+
     /**
-     * Load profile photo for a given username
+     * Fill a circle with a user's photo without blocking the caller.
+     * A photo already in memory is shown immediately; otherwise the fallback is
+     * shown until the photo has loaded. Call on the FX thread.
+     * @param circle The circle to fill
      * @param username The username to load photo for
-     * @return JavaFX Image, or null if loading fails
+     * @param size Displayed edge length in px
+     * @param fallback Fill while loading or if the user has no photo (null keeps the current fill)
      */
-    public static Image loadPhoto(String username) {
+    public static void fillAsync(Circle circle, String username, int size, Paint fallback) {
+        CachedPhoto cached = username != null ? memoryCache.get(cacheKey(username, size)) : null;
+        Image shown = cached != null ? cached.image() : null;
+        setFill(circle, shown, fallback);
+        if (cached != null && cached.isFresh()) {
+            return;
+        }
+
+        loadPhotoAsync(username, size).thenAccept(image -> {
+            if (image != shown) {
+                Platform.runLater(() -> setFill(circle, image, fallback));
+            }
+        });
+    }
+
+    /**
+     * Load profile photo for a given username on the loader pool
+     * @param username The username to load photo for
+     * @param size Displayed edge length in px; the image is decoded at this size
+     * @return Future of the JavaFX Image, completing with null if the user has no photo or loading fails
+     */
+    public static CompletableFuture<Image> loadPhotoAsync(String username, int size) {
         if (username == null || username.isEmpty()) {
             logger.warn("Cannot load photo: username is null or empty");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String key = cacheKey(username, size);
+        CompletableFuture<Image> existing = inFlight.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        loaderPool.execute(() -> {
+            try {
+                created.complete(loadPhoto(username, size, key));
+            } catch (Exception e) {
+                logger.debug("Failed to load photo for user: {}", username);
+                created.complete(null);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Load many users' photos with one batch request (e.g. a whole friends list).
+     * Photos fresh in memory are skipped. Call before building the list: the
+     * fillAsync calls that follow join these loads instead of starting their own.
+     * @param usernames The users to load photos for
+     * @param size Displayed edge length in px
+     */
+    public static void prefetch(Collection<String> usernames, int size) {
+        Map<String, CompletableFuture<Image>> batch = new LinkedHashMap<>();
+        for (String username : usernames) {
+            if (username == null || username.isEmpty()) {
+                continue;
+            }
+            String key = cacheKey(username, size);
+            CachedPhoto cached = memoryCache.get(key);
+            if (cached != null && cached.isFresh()) {
+                continue;
+            }
+            CompletableFuture<Image> created = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(key, created) == null) {
+                batch.put(username, created);
+            }
+        }
+        if (!batch.isEmpty()) {
+            loaderPool.execute(() -> loadBatch(batch, size));
+        }
+    }
+
+    // Blocking batch load through both cache levels; runs on the loader pool
+    private static void loadBatch(Map<String, CompletableFuture<Image>> batch, int size) {
+        Map<String, Image> images = new HashMap<>();
+        try {
+            // username → cached photo due for revalidation (null if none)
+            Map<String, CachedPhoto> stale = new LinkedHashMap<>();
+            for (String username : batch.keySet()) {
+                String key = cacheKey(username, size);
+                CachedPhoto cached = memoryCache.get(key);
+                if (cached == null) {
+                    cached = readFromDisk(key, size);
+                }
+                if (cached != null && cached.isFresh()) {
+                    memoryCache.put(key, cached);
+                    images.put(username, cached.image());
+                } else {
+                    stale.put(username, cached);
+                }
+            }
+
+            List<String> pending = new ArrayList<>(stale.keySet());
+            for (int from = 0; from < pending.size(); from += MAX_BATCH_SIZE) {
+                List<String> chunk = pending.subList(from, Math.min(from + MAX_BATCH_SIZE, pending.size()));
+                fetchBatch(chunk, stale, size).forEach((username, loaded) -> {
+                    memoryCache.put(cacheKey(username, size), loaded);
+                    images.put(username, loaded.image());
+                });
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to load photo batch", e);
+        } finally {
+            batch.forEach((username, future) -> {
+                future.complete(images.get(username));
+                inFlight.remove(cacheKey(username, size), future);
+            });
+        }
+    }
+
+    // Blocking load through both cache levels; runs on the loader pool
+    private static Image loadPhoto(String username, int size, String key) {
+        CachedPhoto cached = memoryCache.get(key);
+        if (cached == null) {
+            cached = readFromDisk(key, size);
+        }
+        if (cached != null && cached.isFresh()) {
+            memoryCache.put(key, cached);
+            return cached.image();
+        }
+
+        CachedPhoto loaded = fetch(username, size, key, cached);
+        if (loaded == null) {
             return null;
         }
+        memoryCache.put(key, loaded);
+        return loaded.image();
+    }
+
+    private static String cacheKey(String username, int size) {
+        return userKeyPrefix(username) + size;
+    }
+
+    private static String userKeyPrefix(String username) {
+        return URLEncoder.encode(username, StandardCharsets.UTF_8) + "_";
+    }
+
+    private static void setFill(Circle circle, Image image, Paint fallback) {
+        if (image != null) {
+            circle.setFill(new ImagePattern(image));
+        } else if (fallback != null) {
+            circle.setFill(fallback);
+        }
+    }
 
+    // Conditional GET: 304 keeps the cached image, 200 replaces it
+    private static CachedPhoto fetch(String username, int size, String key, CachedPhoto cached) {
+        String endpoint = "/users/photo/" + URLEncoder.encode(username, StandardCharsets.UTF_8) + "?size=" + size;
         try {
-            String encodedUsername = java.net.URLEncoder.encode(
-                    username,
-                    java.nio.charset.StandardCharsets.UTF_8
-            );
-            String photoUrl = Environment.getServerUrl() + "/users/photo/" + encodedUsername;
-
-            BufferedImage bufferedImage = ImageIO.read(new URI(photoUrl).toURL());
-            if (bufferedImage != null) {
-                return SwingFXUtils.toFXImage(bufferedImage, null);
-            } else {
-                logger.debug("No photo found for user: {}", username);
-                return null;
-            }
-        } catch (IOException | java.net.URISyntaxException e) {
+            HttpResponse<byte[]> response = ServiceManager.getInstance().getApiClient()
+                    .getBytes(endpoint, cached != null ? cached.etag() : null)
+                    .join();
+
+            if (response.statusCode() == 304 && cached != null) {
+                touchOnDisk(key);
+                return cached.revalidated();
+            }
+            if (response.statusCode() != 200) {
+                logger.debug("No photo for user: {} (HTTP {})", username, response.statusCode());
+                return cached != null ? cached.revalidated() : null;
+            }
+
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            byte[] data = response.body();
+            CachedPhoto loaded = new CachedPhoto(decode(data, size), etag, System.currentTimeMillis());
+            if (etag != null) {
+                writeToDisk(username, size, data, etag);
+            }
+            return loaded;
+        } catch (Exception e) {
+            // Keep showing what we have; try the server again after the next interval
             logger.debug("Failed to load photo for user: {}", username);
+            return cached != null ? cached.revalidated() : null;
+        }
+    }
+
+    // One batch request; photos the server leaves out are unchanged
+    private static Map<String, CachedPhoto> fetchBatch(List<String> usernames, Map<String, CachedPhoto> cached, int size) {
+        Map<String, CachedPhoto> result = new HashMap<>();
+        try {
+            // Gson drops null map values, so "no photo cached" is sent as an empty ETag
+            Map<String, String> known = new LinkedHashMap<>();
+            for (String username : usernames) {
+                CachedPhoto photo = cached.get(username);
+                known.put(username, photo != null ? photo.etag() : "");
+            }
+            String body = JsonUtil.toJson(Map.of("size", size, "photos", known));
+            HttpResponse<byte[]> response = ServiceManager.getInstance().getApiClient()
+                    .postForBytes("/users/photos", body)
+                    .join();
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+
+            // int count, then per photo: UTF username, UTF etag, int length, bytes
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(response.body()));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String username = in.readUTF();
+                String etag = in.readUTF();
+                byte[] data = in.readNBytes(in.readInt());
+                writeToDisk(username, size, data, etag);
+                result.put(username, new CachedPhoto(decode(data, size), etag, System.currentTimeMillis()));
+            }
+        } catch (Exception e) {
+            // Keep showing what we have; try the server again after the next interval
+            logger.debug("Failed to load photo batch of {} users", usernames.size());
+        }
+
+        for (String username : usernames) {
+            CachedPhoto photo = cached.get(username);
+            if (!result.containsKey(username) && photo != null) {
+                touchOnDisk(cacheKey(username, size));
+                result.put(username, photo.revalidated());
+            }
+        }
+        return result;
+    }
+
+    // Decode straight to the displayed size, so only the pixels needed are kept
+    private static Image decode(byte[] data, int size) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        Image image = new Image(new ByteArrayInputStream(data), size, size, true, true);
+        return image.isError() ? null : image;
+    }
+
+    // Last validation time is the ETag file's modification time
+    private static CachedPhoto readFromDisk(String key, int size) {
+        Path etagFile = cacheDir.resolve(key + ETAG_SUFFIX);
+        if (!Files.exists(etagFile)) {
             return null;
         }
+        try {
+            String etag = Files.readString(etagFile);
+            Path imageFile = cacheDir.resolve(key + IMAGE_SUFFIX);
+            byte[] data = Files.exists(imageFile) ? Files.readAllBytes(imageFile) : null;
+            long validatedAt = Files.getLastModifiedTime(etagFile).toMillis();
+            return new CachedPhoto(decode(data, size), etag, validatedAt);
+        } catch (IOException e) {
+            logger.debug("Failed to read cached photo: {}", key);
+            return null;
+        }
+    }
+
+    // Image first, ETag last: an ETag on disk always matches the image next to it
+    private static void writeToDisk(String username, int size, byte[] data, String etag) {
+        String key = cacheKey(username, size);
+        synchronized (diskLock) {
+            try {
+                Files.createDirectories(cacheDir);
+                Path etagFile = cacheDir.resolve(key + ETAG_SUFFIX);
+                Path imageFile = cacheDir.resolve(key + IMAGE_SUFFIX);
+                String previous = Files.exists(etagFile) ? Files.readString(etagFile) : null;
+                Files.deleteIfExists(etagFile);
+                if (data.length > 0) {
+                    writeAtomically(imageFile, data);
+                } else {
+                    Files.deleteIfExists(imageFile);
+                }
+                writeAtomically(etagFile, etag.getBytes(StandardCharsets.UTF_8));
+                if (previous != null && !previous.equals(etag)) {
+                    deleteOtherSizes(username, size);
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to cache photo: {}", key);
+            }
+        }
+    }
+
+    // The photo changed: its copies at other sizes are outdated
+    private static void deleteOtherSizes(String username, int size) throws IOException {
+        Pattern sameUser = Pattern.compile(Pattern.quote(userKeyPrefix(username)) + "\\d+");
+        String current = cacheKey(username, size);
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : files.toList()) {
+                String key = keyOf(file.getFileName().toString());
+                if (key != null && !key.equals(current) && sameUser.matcher(key).matches()) {
+                    deleteFromDisk(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete cached photos not validated within AVATAR_DISK_CACHE_MAX_AGE_MS, then the least
+     * recently validated ones until the cache fits in AVATAR_DISK_CACHE_MAX_BYTES.
+     * Also removes images without an ETag and temp files left by an interrupted write.
+     * Runs once per start on the loader pool.
+     */
+    private static void pruneDiskCache() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        synchronized (diskLock) {
+            try (Stream<Path> files = Files.list(cacheDir)) {
+                long now = System.currentTimeMillis();
+                // key → last validation, and bytes per key (image + ETag)
+                Map<String, Long> validatedAt = new HashMap<>();
+                Map<String, Long> bytes = new HashMap<>();
+                List<Path> orphans = new ArrayList<>();
+                for (Path file : files.toList()) {
+                    String name = file.getFileName().toString();
+                    String key = keyOf(name);
+                    if (key == null) {
+                        if (name.endsWith(TEMP_SUFFIX)) {
+                            orphans.add(file);
+                        }
+                        continue;
+                    }
+                    bytes.merge(key, Files.size(file), Long::sum);
+                    if (name.endsWith(ETAG_SUFFIX)) {
+                        validatedAt.put(key, Files.getLastModifiedTime(file).toMillis());
+                    }
+                }
+                for (String key : bytes.keySet()) {
+                    if (!validatedAt.containsKey(key)) {
+                        orphans.add(cacheDir.resolve(key + IMAGE_SUFFIX));
+                    }
+                }
+                for (Path orphan : orphans) {
+                    Files.deleteIfExists(orphan);
+                }
+
+                List<String> newestFirst = new ArrayList<>(validatedAt.keySet());
+                newestFirst.sort(Comparator.comparing(validatedAt::get, Comparator.reverseOrder()));
+                long kept = 0;
+                int deleted = 0;
+                boolean full = false;
+                for (String key : newestFirst) {
+                    full = full || kept + bytes.get(key) > Environment.AVATAR_DISK_CACHE_MAX_BYTES;
+                    if (full || now - validatedAt.get(key) > Environment.AVATAR_DISK_CACHE_MAX_AGE_MS) {
+                        deleteFromDisk(key);
+                        deleted++;
+                    } else {
+                        kept += bytes.get(key);
+                    }
+                }
+                if (deleted > 0) {
+                    logger.debug("Pruned {} cached photos, {} bytes kept", deleted, kept);
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to prune photo cache", e);
+            }
+        }
+    }
+
+    // ETag first, so a photo is never left with an ETag but no image
+    private static void deleteFromDisk(String key) throws IOException {
+        Files.deleteIfExists(cacheDir.resolve(key + ETAG_SUFFIX));
+        Files.deleteIfExists(cacheDir.resolve(key + IMAGE_SUFFIX));
+    }
+
+    // Cache key of an image or ETag file, null for anything else
+    private static String keyOf(String fileName) {
+        for (String suffix : List.of(IMAGE_SUFFIX, ETAG_SUFFIX)) {
+            if (fileName.endsWith(suffix)) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(cacheDir, "photo", TEMP_SUFFIX);
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void touchOnDisk(String key) {
+        try {
+            Files.setLastModifiedTime(cacheDir.resolve(key + ETAG_SUFFIX), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Failed to refresh cached photo: {}", key);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,15 @@
 package goksoft.chat.app.ui.components;
 
+import goksoft.chat.app.config.Environment;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Font;
 
@@ -29,12 +28,11 @@ public class RequestBoxComponent {
      * Create a friend request box UI component
      *
      * @param requesterName Username of person who sent request
-     * @param photo Profile photo (nullable)
      * @param onAccept Callback when accept button clicked
      * @param onReject Callback when reject button clicked
      * @return BorderPane containing request info
      */
-    public static BorderPane create(String requesterName, Image photo,
+    public static BorderPane create(String requesterName,
                                     EventHandler<MouseEvent> onAccept,
                                     EventHandler<MouseEvent> onReject) {
 
@@ -49,11 +47,7 @@ public class RequestBoxComponent {
         // Profile photo circle
         Circle profileCircle = new Circle(21);
         profileCircle.setStrokeWidth(0);
-        if (photo == null || photo.isError()) {
-            profileCircle.setFill(Color.BLACK);
-        } else {
-            profileCircle.setFill(new ImagePattern(photo));
-        }
+        ProfilePhotoLoader.fillAsync(profileCircle, requesterName, Environment.AVATAR_SIZE_PX, Color.BLACK);
         BorderPane.setAlignment(profileCircle, Pos.CENTER);
         BorderPane.setMargin(profileCircle, new Insets(10, 0, 0, 10));
 
@@ -1,15 +1,14 @@
 package goksoft.chat.app.ui.components;
 
+import goksoft.chat.app.config.Environment;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Font;
 
@@ -27,11 +26,10 @@ public class UserBoxComponent {
      * Create a user search result box UI component
      *
      * @param userName Username of found user
-     * @param photo Profile photo (nullable)
      * @param onAddClick Callback when add button clicked
      * @return HBox containing user info
      */
-    public static HBox create(String userName, Image photo, EventHandler<MouseEvent> onAddClick) {
+    public static HBox create(String userName, EventHandler<MouseEvent> onAddClick) {
 
         // Main container
         HBox container = new HBox();
@@ -45,11 +43,7 @@ public class UserBoxComponent {
         // Profile photo circle
         Circle profileCircle = new Circle(21);
         profileCircle.setStrokeWidth(0);
-        if (photo == null || photo.isError()) {
-            profileCircle.setFill(Color.BLACK);
-        } else {
-            profileCircle.setFill(new ImagePattern(photo));
-        }
+        ProfilePhotoLoader.fillAsync(profileCircle, userName, Environment.AVATAR_SIZE_PX, Color.BLACK);
         HBox.setMargin(profileCircle, new Insets(0, 0, 0, 10));
 
         // Username label